@@ -0,0 +1,188 @@
+/*
+ * BenchmarkDataset.java
+ * Generated, read-only product catalog backing the in-memory platform fakes.
+ */
+package com.example.benchmarks;
+
+import de.hybris.platform.catalog.model.CatalogModel;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Deterministic product catalog: the same size always produces the same data, so runs are comparable.
+ *
+ * - Product i has code P%08d, name "Product i <word>" and belongs to category C(i % categoryCount)
+ * - Every fifth product is out of stock, the others have between 1 and 99 units
+ * - All products are in one catalog version, {@link #CATALOG_ID}:{@link #CATALOG_VERSION}; every
+ *   product has one stock level in {@link #WAREHOUSE_CODE}, its PK in the same order as the product's
+ *
+ * Names are kept here rather than on the model: localized attributes need a platform locale context.
+ */
+public final class BenchmarkDataset {
+
+    public static final String CATALOG_ID = "benchmarkProductCatalog";
+    public static final String CATALOG_VERSION = "Online";
+    public static final String WAREHOUSE_CODE = "benchmarkWarehouse";
+
+    private static final long PRODUCT_PK_BASE = 8_796_093_022_208L;
+    private static final long STOCK_LEVEL_PK_OFFSET = 1_000_000_000L;
+    private static final long CATALOG_VERSION_PK = 8_796_093_055_577L;
+
+    private static final String[] WORDS = { "shirt", "camera", "lamp", "drill", "kettle", "bottle", "jacket", "phone" };
+
+    private final List<ProductModel> products;
+    private final Map<String, ProductModel> productsByCode;
+    private final Map<Long, ProductModel> productsByPk;
+    private final Map<String, List<ProductModel>> productsByCategory;
+    private final Map<Long, String> namesByPk;
+    private final Map<Long, Long> stockByPk;
+    private final int categoryCount;
+    private final CatalogVersionModel catalogVersion;
+
+    public BenchmarkDataset(final int size, final int categoryCount) {
+        this.categoryCount = categoryCount;
+        this.products = new ArrayList<>(size);
+        this.productsByCode = new HashMap<>(size * 2);
+        this.productsByPk = new HashMap<>(size * 2);
+        this.productsByCategory = new HashMap<>(categoryCount * 2);
+        this.namesByPk = new HashMap<>(size * 2);
+        this.stockByPk = new HashMap<>(size * 2);
+        this.catalogVersion = new BenchmarkCatalogVersionModel(PK.fromLong(CATALOG_VERSION_PK));
+
+        for (int i = 0; i < size; i++) {
+            final long pk = PRODUCT_PK_BASE + i;
+            final ProductModel product = new BenchmarkProductModel(PK.fromLong(pk));
+            product.setCode(productCode(i));
+            products.add(product);
+            productsByCode.put(product.getCode(), product);
+            productsByPk.put(Long.valueOf(pk), product);
+            productsByCategory.computeIfAbsent(categoryCode(i % categoryCount), code -> new ArrayList<>()).add(product);
+            namesByPk.put(Long.valueOf(pk), "Product " + i + " " + WORDS[i % WORDS.length]);
+            stockByPk.put(Long.valueOf(pk), Long.valueOf(i % 5 == 0 ? 0L : i % 99 + 1));
+        }
+    }
+
+    public static String productCode(final int index) {
+        return String.format(Locale.ROOT, "P%08d", Integer.valueOf(index));
+    }
+
+    public static String categoryCode(final int index) {
+        return "C" + index;
+    }
+
+    public static String searchWord(final int index) {
+        return WORDS[index % WORDS.length];
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * @return products in PK order
+     */
+    public List<ProductModel> getProducts() {
+        return Collections.unmodifiableList(products);
+    }
+
+    public ProductModel getProduct(final String code) {
+        return productsByCode.get(code);
+    }
+
+    /**
+     * @return products of the category in PK order, empty if unknown
+     */
+    public List<ProductModel> getProductsInCategory(final String categoryCode) {
+        final List<ProductModel> categoryProducts = productsByCategory.get(categoryCode);
+        return categoryProducts == null ? Collections.emptyList() : categoryProducts;
+    }
+
+    public ProductModel getProduct(final PK pk) {
+        return productsByPk.get(Long.valueOf(pk.getLongValue()));
+    }
+
+    /**
+     * @return the catalog version of all products, also the only session catalog version
+     */
+    public CatalogVersionModel getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public long getStockLevelPk(final ProductModel product) {
+        return product.getPk().getLongValue() + STOCK_LEVEL_PK_OFFSET;
+    }
+
+    public String getName(final ProductModel product) {
+        return namesByPk.get(Long.valueOf(product.getPk().getLongValue()));
+    }
+
+    public long getStock(final ProductModel product) {
+        final Long stock = stockByPk.get(Long.valueOf(product.getPk().getLongValue()));
+        return stock == null ? 0L : stock.longValue();
+    }
+
+    /**
+     * Product model with a fixed PK, as if loaded from the database.
+     */
+    static final class BenchmarkProductModel extends ProductModel {
+
+        private final PK pk;
+
+        BenchmarkProductModel(final PK pk) {
+            this.pk = pk;
+        }
+
+        @Override
+        public PK getPk() {
+            return pk;
+        }
+    }
+
+    /**
+     * Catalog version with a fixed PK; catalog id and version as in {@link #CATALOG_ID} / {@link #CATALOG_VERSION}.
+     */
+    static final class BenchmarkCatalogVersionModel extends CatalogVersionModel {
+
+        private final PK pk;
+        private final CatalogModel catalog = new BenchmarkCatalogModel();
+
+        BenchmarkCatalogVersionModel(final PK pk) {
+            this.pk = pk;
+        }
+
+        @Override
+        public PK getPk() {
+            return pk;
+        }
+
+        @Override
+        public CatalogModel getCatalog() {
+            return catalog;
+        }
+
+        @Override
+        public String getVersion() {
+            return CATALOG_VERSION;
+        }
+    }
+
+    static final class BenchmarkCatalogModel extends CatalogModel {
+
+        @Override
+        public String getId() {
+            return CATALOG_ID;
+        }
+    }
+}
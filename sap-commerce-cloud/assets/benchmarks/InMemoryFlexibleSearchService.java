@@ -0,0 +1,192 @@
+/*
+ * InMemoryFlexibleSearchService.java
+ * FlexibleSearchService fake answering the product DAO and index rebuild queries from a BenchmarkDataset.
+ */
+package com.example.benchmarks;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.impl.SearchResultImpl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Answers the queries DefaultProductDAO issues, recognized by their FROM/WHERE shape:
+ * - Lookup by code, by code list, by code and catalog version
+ * - Text search with LIKE, with start/count paging and optional total
+ * - Category listing via CategoryProductRelation, with or without a PK cursor
+ * - Product count
+ * Queries selecting PKs only (the PK query result cache loader) get PKs instead of models.
+ *
+ * And the keyset rebuild queries of the in-memory indexes, as raw rows:
+ * - StockAvailabilityIndex: stock levels after ?lastPk
+ * - TrigramProductTextSearchStrategy: (pk, name, catalogVersion) after ?lastPk
+ *
+ * Each search sleeps for the configured latency first, standing in for the database round trip.
+ * Lookups by code are hash lookups and text search is a linear scan, as with a LIKE '%...%'
+ * on an unindexed column. Unknown queries fail, so a changed DAO query is noticed instead of
+ * silently benchmarking an empty result.
+ *
+ * Implemented as a dynamic proxy: only {@code search(FlexibleSearchQuery)} is needed, and the
+ * fake keeps compiling when the platform interface gains methods.
+ */
+public final class InMemoryFlexibleSearchService implements InvocationHandler {
+
+    private final BenchmarkDataset dataset;
+    private final long latencyMicros;
+
+    private InMemoryFlexibleSearchService(final BenchmarkDataset dataset, final long latencyMicros) {
+        this.dataset = dataset;
+        this.latencyMicros = latencyMicros;
+    }
+
+    public static FlexibleSearchService create(final BenchmarkDataset dataset, final long latencyMicros) {
+        return (FlexibleSearchService) Proxy.newProxyInstance(FlexibleSearchService.class.getClassLoader(),
+                new Class<?>[] { FlexibleSearchService.class }, new InMemoryFlexibleSearchService(dataset, latencyMicros));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            return InMemoryPlatformFakes.objectMethod(proxy, method, args);
+        }
+        if ("search".equals(method.getName()) && args != null && args.length == 1
+                && args[0] instanceof FlexibleSearchQuery) {
+            InMemoryPlatformFakes.pause(latencyMicros);
+            return search((FlexibleSearchQuery) args[0]);
+        }
+        throw new UnsupportedOperationException("Not faked: FlexibleSearchService." + method.getName());
+    }
+
+    private SearchResultImpl<?> search(final FlexibleSearchQuery query) {
+        final String queryString = query.getQuery();
+        final Map<String, Object> parameters = query.getQueryParameters();
+
+        if (queryString.contains("{StockLevel AS sl") && parameters.containsKey("lastPk")) {
+            return result(stockLevelRows(((Number) parameters.get("lastPk")).longValue(), query.getCount()), query, -1);
+        }
+        if (queryString.contains("{p.name[") && parameters.containsKey("lastPk")) {
+            return result(nameRows(((Number) parameters.get("lastPk")).longValue(), query.getCount()), query, -1);
+        }
+        if (queryString.contains("COUNT(")) {
+            return result(Collections.singletonList(Integer.valueOf(dataset.size())), query, -1);
+        }
+        if (queryString.contains("CategoryProductRelation")) {
+            return page(afterPk(dataset.getProductsInCategory((String) parameters.get("categoryCode")), parameters),
+                    query);
+        }
+        if (queryString.contains("LIKE")) {
+            return page(searchByName((String) parameters.get("searchText")), query);
+        }
+        if (queryString.contains("IN (?codes)")) {
+            final List<ProductModel> products = new ArrayList<>();
+            for (final Object code : (Collection<?>) parameters.get("codes")) {
+                final ProductModel product = dataset.getProduct((String) code);
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            return result(products, query, -1);
+        }
+        if (queryString.contains("= ?code")) {
+            final ProductModel product = dataset.getProduct((String) parameters.get("code"));
+            final boolean inCatalog = !parameters.containsKey("catalogId")
+                    || (BenchmarkDataset.CATALOG_ID.equals(parameters.get("catalogId"))
+                            && BenchmarkDataset.CATALOG_VERSION.equals(parameters.get("versionName")));
+            return result(asResultClass(product == null || !inCatalog
+                    ? Collections.emptyList() : Collections.singletonList(product), query), query, -1);
+        }
+        throw new UnsupportedOperationException("Query not faked: " + queryString);
+    }
+
+    private List<List<Object>> stockLevelRows(final long lastPk, final int count) {
+        // Columns: pk, productCode, warehouse code, available, reserved, inStockStatus code
+        final List<List<Object>> rows = new ArrayList<>();
+        for (final ProductModel product : dataset.getProducts()) {
+            final long pk = dataset.getStockLevelPk(product);
+            if (pk > lastPk) {
+                rows.add(Arrays.asList(Long.valueOf(pk), product.getCode(), BenchmarkDataset.WAREHOUSE_CODE,
+                        Integer.valueOf((int) dataset.getStock(product)), Integer.valueOf(0), null));
+                if (rows.size() == count) {
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<List<Object>> nameRows(final long lastPk, final int count) {
+        final Long catalogVersionPk = Long.valueOf(dataset.getCatalogVersion().getPk().getLongValue());
+        final List<List<Object>> rows = new ArrayList<>();
+        for (final ProductModel product : dataset.getProducts()) {
+            final long pk = product.getPk().getLongValue();
+            if (pk > lastPk) {
+                rows.add(Arrays.asList(Long.valueOf(pk), dataset.getName(product), catalogVersionPk));
+                if (rows.size() == count) {
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<ProductModel> searchByName(final String pattern) {
+        // Parameter is %text%, matched case-insensitively like LOWER(...) LIKE LOWER(...)
+        final String text = pattern.replace("%", "").toLowerCase(Locale.ROOT);
+        final List<ProductModel> matches = new ArrayList<>();
+        for (final ProductModel product : dataset.getProducts()) {
+            if (dataset.getName(product).toLowerCase(Locale.ROOT).contains(text)) {
+                matches.add(product);
+            }
+        }
+        return matches;
+    }
+
+    private static List<ProductModel> afterPk(final List<ProductModel> products, final Map<String, Object> parameters) {
+        final Object lastPk = parameters.get("lastPk");
+        if (lastPk == null) {
+            return products;
+        }
+        final long after = ((Number) lastPk).longValue();
+        final List<ProductModel> remaining = new ArrayList<>();
+        for (final ProductModel product : products) {
+            if (product.getPk().getLongValue() > after) {
+                remaining.add(product);
+            }
+        }
+        return remaining;
+    }
+
+    private static SearchResultImpl<?> page(final List<ProductModel> matches, final FlexibleSearchQuery query) {
+        final int start = Math.max(0, query.getStart());
+        final int end = query.getCount() > 0 ? Math.min(matches.size(), start + query.getCount()) : matches.size();
+        final List<ProductModel> page = start >= end ? Collections.emptyList() : new ArrayList<>(matches.subList(start, end));
+        return result(asResultClass(page, query), query, query.isNeedTotal() ? matches.size() : -1);
+    }
+
+    private static List<?> asResultClass(final List<ProductModel> products, final FlexibleSearchQuery query) {
+        if (!Collections.singletonList(PK.class).equals(query.getResultClassList())) {
+            return products;
+        }
+        final List<PK> pks = new ArrayList<>(products.size());
+        for (final ProductModel product : products) {
+            pks.add(product.getPk());
+        }
+        return pks;
+    }
+
+    private static <T> SearchResultImpl<T> result(final List<T> rows, final FlexibleSearchQuery query, final int total) {
+        return new SearchResultImpl<>(rows, total < 0 ? rows.size() : total, query.getCount(), query.getStart());
+    }
+}
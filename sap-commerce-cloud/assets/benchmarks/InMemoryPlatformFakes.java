@@ -0,0 +1,169 @@
+/*
+ * InMemoryPlatformFakes.java
+ * Platform service fakes for the product path benchmarks.
+ */
+package com.example.benchmarks;
+
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.stock.StockService;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Minimal platform service fakes.
+ *
+ * - StockService answers getTotalStockLevelAmount from the dataset after the configured latency
+ * - ModelService loads products by PK from the dataset and accepts detach and refresh as no-ops;
+ *   the read paths benchmarked do not write. Loading by PK is a cache hit in production, so it does not pause
+ * - Session context: anonymous user, language en, the dataset's catalog version as the only
+ *   session catalog version
+ * - TypeService returns composed types without subtypes; only their type codes are read
+ *
+ * Any other method fails, so a code change that starts using it shows up in the benchmark run.
+ */
+public final class InMemoryPlatformFakes {
+
+    private InMemoryPlatformFakes() {
+    }
+
+    public static StockService stockService(final BenchmarkDataset dataset, final long latencyMicros) {
+        return (StockService) Proxy.newProxyInstance(StockService.class.getClassLoader(),
+                new Class<?>[] { StockService.class }, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return objectMethod(proxy, method, args);
+                    }
+                    if ("getTotalStockLevelAmount".equals(method.getName()) && args != null && args.length == 1) {
+                        pause(latencyMicros);
+                        return Long.valueOf(dataset.getStock((ProductModel) args[0]));
+                    }
+                    throw new UnsupportedOperationException("Not faked: StockService." + method.getName());
+                });
+    }
+
+    public static ModelService modelService(final BenchmarkDataset dataset) {
+        return (ModelService) Proxy.newProxyInstance(ModelService.class.getClassLoader(),
+                new Class<?>[] { ModelService.class }, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return objectMethod(proxy, method, args);
+                    }
+                    if (method.getName().startsWith("detach") || "refresh".equals(method.getName())) {
+                        return null;
+                    }
+                    if ("get".equals(method.getName()) && args != null && args.length == 1 && args[0] instanceof PK) {
+                        final ProductModel product = dataset.getProduct((PK) args[0]);
+                        if (product == null) {
+                            throw new ModelLoadingException("No item with PK " + args[0]);
+                        }
+                        return product;
+                    }
+                    throw new UnsupportedOperationException("Not faked: ModelService." + method.getName());
+                });
+    }
+
+    public static CatalogVersionService catalogVersionService(final BenchmarkDataset dataset) {
+        final Collection<?> sessionCatalogVersions = Collections.singletonList(dataset.getCatalogVersion());
+        return fake(CatalogVersionService.class, "getSessionCatalogVersions", args -> sessionCatalogVersions);
+    }
+
+    public static UserService userService() {
+        final UserModel anonymous = new BenchmarkUserModel();
+        return fake(UserService.class, "getCurrentUser", args -> anonymous);
+    }
+
+    public static CommonI18NService commonI18NService() {
+        final LanguageModel english = new BenchmarkLanguageModel();
+        return fake(CommonI18NService.class, "getCurrentLanguage", args -> english);
+    }
+
+    public static TypeService typeService() {
+        return fake(TypeService.class, "getComposedTypeForClass",
+                args -> new BenchmarkComposedTypeModel(((Class<?>) args[0]).getSimpleName().hashCode()));
+    }
+
+    /**
+     * Fake answering a single method of the interface; every other method fails.
+     */
+    private static <T> T fake(final Class<T> type, final String methodName, final Function<Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args);
+            }
+            if (methodName.equals(method.getName())) {
+                return answer.apply(args);
+            }
+            throw new UnsupportedOperationException("Not faked: " + type.getSimpleName() + "." + method.getName());
+        }));
+    }
+
+    /**
+     * Simulate a remote round trip. Parks instead of spinning: the calling thread is blocked,
+     * not busy, as it would be while waiting for the database.
+     */
+    static void pause(final long latencyMicros) {
+        if (latencyMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        }
+    }
+
+    static Object objectMethod(final Object proxy, final Method method, final Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return Boolean.valueOf(proxy == args[0]);
+            case "hashCode":
+                return Integer.valueOf(System.identityHashCode(proxy));
+            default:
+                return "InMemoryFake@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    static final class BenchmarkUserModel extends UserModel {
+
+        @Override
+        public String getUid() {
+            return "anonymous";
+        }
+    }
+
+    static final class BenchmarkLanguageModel extends LanguageModel {
+
+        @Override
+        public String getIsocode() {
+            return "en";
+        }
+    }
+
+    static final class BenchmarkComposedTypeModel extends ComposedTypeModel {
+
+        private final Integer itemTypeCode;
+
+        BenchmarkComposedTypeModel(final int itemTypeCode) {
+            this.itemTypeCode = Integer.valueOf(itemTypeCode);
+        }
+
+        @Override
+        public Integer getItemtypecode() {
+            return itemTypeCode;
+        }
+
+        @Override
+        public Collection<ComposedTypeModel> getAllSubTypes() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * ProductPathBenchmark.java
+ * JMH benchmarks for the product read path: DAO, service, facade and OCC populator.
+ */
+package com.example.benchmarks;
+
+import com.example.core.daos.cache.PkQueryResultCache;
+import com.example.core.daos.impl.DefaultProductDAO;
+import com.example.core.search.ProductTextSearchStrategy;
+import com.example.core.search.SearchPage;
+import com.example.core.search.impl.FlexibleSearchProductTextSearchStrategy;
+import com.example.core.search.impl.TrigramProductTextSearchStrategy;
+import com.example.core.services.impl.DefaultProductService;
+import com.example.core.stock.StockAvailabilityIndex;
+import com.example.dto.CustomProductWsDTO;
+import com.example.facades.data.CustomProductData;
+import com.example.facades.data.ProductData;
+import com.example.facades.impl.DefaultProductFacade;
+import com.example.populators.CustomProductPopulator;
+
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.dto.converter.Converter;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the product read path on in-memory fakes for FlexibleSearchService, ModelService,
+ * StockService and the session context services.
+ *
+ * Parameters:
+ * - datasetSize: number of products; text search and category listing scale with it
+ * - latencyMicros: simulated database round trip per query / stock lookup; 0 measures pure CPU cost
+ * - textSearch: flexibleSearch (LIKE query, the spring-config.xml default) or trigram
+ *   (TrigramProductTextSearchStrategy with its index built)
+ * - caches: true wires StockAvailabilityIndex and PkQueryResultCache (findByCategory,
+ *   findByCodeAndCatalogVersion) as in spring-config.xml; false measures the plain
+ *   StockService and query paths
+ *
+ * The indexes are built once per trial through their rebuild queries; their invalidation
+ * listeners and refresh threads are not started, the dataset never changes.
+ *
+ * Run from the benchmark module (JMH and the extension classes on the classpath):
+ * <pre>
+ * java -jar target/benchmarks.jar ProductPathBenchmark -prof gc -rf json -rff product-path.json
+ * java -jar target/benchmarks.jar ProductPathBenchmark -t 8 -p latencyMicros=200
+ * java -jar target/benchmarks.jar ProductPathBenchmark.search -p textSearch=trigram -p caches=true
+ * </pre>
+ * {@code -prof gc} reports the allocation rate (gc.alloc.rate.norm = bytes per operation);
+ * comparing the JSON of two runs catches throughput and allocation regressions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductPathBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int BULK_SIZE = 20;
+
+    @Param({ "10000", "100000" })
+    private int datasetSize;
+
+    @Param({ "0", "200" })
+    private int latencyMicros;
+
+    @Param({ "50" })
+    private int categoryCount;
+
+    @Param({ "flexibleSearch", "trigram" })
+    private String textSearch;
+
+    @Param({ "true", "false" })
+    private boolean caches;
+
+    private BenchmarkDataset dataset;
+    private DefaultProductDAO productDAO;
+    private DefaultProductService productService;
+    private DefaultProductFacade productFacade;
+    private CustomProductPopulator customProductPopulator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = new BenchmarkDataset(datasetSize, categoryCount);
+        final FlexibleSearchService flexibleSearchService = InMemoryFlexibleSearchService.create(dataset, latencyMicros);
+        final ModelService modelService = InMemoryPlatformFakes.modelService(dataset);
+
+        productDAO = new DefaultProductDAO();
+        productDAO.setFlexibleSearchService(flexibleSearchService);
+        productDAO.setModelService(modelService);
+        productDAO.setBatchSize(1000);
+        if (caches) {
+            productDAO.setPkQueryResultCache(createPkQueryResultCache());
+            productDAO.setCachedQueries(new HashSet<>(Arrays.asList("findByCategory", "findByCodeAndCatalogVersion")));
+        }
+
+        productService = new DefaultProductService();
+        productService.setProductDAO(productDAO);
+        productService.setModelService(modelService);
+        productService.setStockService(InMemoryPlatformFakes.stockService(dataset, latencyMicros));
+        productService.setProductTextSearchStrategy(createTextSearchStrategy(flexibleSearchService, modelService));
+        if (caches) {
+            productService.setStockAvailabilityIndex(createStockAvailabilityIndex(flexibleSearchService));
+        }
+
+        final BenchmarkProductConverter converter = new BenchmarkProductConverter(dataset);
+        productFacade = new DefaultProductFacade();
+        productFacade.setProductService(productService);
+        productFacade.setProductConverter(converter);
+        productFacade.setBasicProductConverter(converter);
+
+        customProductPopulator = new CustomProductPopulator();
+    }
+
+    private ProductTextSearchStrategy createTextSearchStrategy(final FlexibleSearchService flexibleSearchService,
+            final ModelService modelService) {
+        final FlexibleSearchProductTextSearchStrategy flexibleSearchStrategy = new FlexibleSearchProductTextSearchStrategy();
+        flexibleSearchStrategy.setProductDAO(productDAO);
+        if ("flexibleSearch".equals(textSearch)) {
+            return flexibleSearchStrategy;
+        }
+        if (!"trigram".equals(textSearch)) {
+            throw new IllegalArgumentException("Unknown textSearch: " + textSearch);
+        }
+
+        final TrigramProductTextSearchStrategy trigramStrategy = new TrigramProductTextSearchStrategy();
+        trigramStrategy.setFlexibleSearchService(flexibleSearchService);
+        trigramStrategy.setModelService(modelService);
+        trigramStrategy.setTypeService(InMemoryPlatformFakes.typeService());
+        trigramStrategy.setCatalogVersionService(InMemoryPlatformFakes.catalogVersionService(dataset));
+        trigramStrategy.setFallbackStrategy(flexibleSearchStrategy);
+        trigramStrategy.setIndexLanguage("en");
+        trigramStrategy.rebuild();
+        return trigramStrategy;
+    }
+
+    private StockAvailabilityIndex createStockAvailabilityIndex(final FlexibleSearchService flexibleSearchService) {
+        final StockAvailabilityIndex stockAvailabilityIndex = new StockAvailabilityIndex();
+        stockAvailabilityIndex.setFlexibleSearchService(flexibleSearchService);
+        stockAvailabilityIndex.setTypeService(InMemoryPlatformFakes.typeService());
+        stockAvailabilityIndex.setRebuildBatchSize(10000);
+        stockAvailabilityIndex.rebuild();
+        return stockAvailabilityIndex;
+    }
+
+    private PkQueryResultCache createPkQueryResultCache() {
+        final PkQueryResultCache pkQueryResultCache = new PkQueryResultCache();
+        pkQueryResultCache.setCatalogVersionService(InMemoryPlatformFakes.catalogVersionService(dataset));
+        pkQueryResultCache.setCommonI18NService(InMemoryPlatformFakes.commonI18NService());
+        pkQueryResultCache.setUserService(InMemoryPlatformFakes.userService());
+        pkQueryResultCache.setTrackedTypes(new HashSet<>(
+                Arrays.asList("Product", "CategoryProductRelation", "Category", "CatalogVersion", "Catalog")));
+        pkQueryResultCache.setMaxWeight(200000L);
+        pkQueryResultCache.setTtlSeconds(3600L);
+        return pkQueryResultCache;
+    }
+
+    /**
+     * Per-thread random input, so threads do not all hit the same product.
+     */
+    @State(Scope.Thread)
+    public static class Input {
+
+        private final SplittableRandom random = new SplittableRandom(42);
+        private int size;
+        private int categories;
+
+        @Setup(Level.Trial)
+        public void setUp(final ProductPathBenchmark benchmark) {
+            size = benchmark.datasetSize;
+            categories = benchmark.categoryCount;
+        }
+
+        String productCode() {
+            return BenchmarkDataset.productCode(random.nextInt(size));
+        }
+
+        List<String> productCodes() {
+            final List<String> codes = new ArrayList<>(BULK_SIZE);
+            for (int i = 0; i < BULK_SIZE; i++) {
+                codes.add(productCode());
+            }
+            return codes;
+        }
+
+        String categoryCode() {
+            return BenchmarkDataset.categoryCode(random.nextInt(categories));
+        }
+
+        String searchWord() {
+            return BenchmarkDataset.searchWord(random.nextInt(Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Pre-built OCC input, so only the populator is measured.
+     */
+    @State(Scope.Thread)
+    public static class OccInput {
+
+        private CustomProductData source;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            source = new CustomProductData();
+            source.setCode("P00000001");
+            source.setName("Product 1 camera");
+            source.setDescription("A camera with a long description that is copied verbatim");
+            source.setSummary("Camera");
+            source.setUrl("/p/P00000001");
+            source.setStockStatus("inStock");
+            source.setStockLevel(Integer.valueOf(42));
+            source.setPurchasable(true);
+            source.setCategoryCode("C1");
+            source.setCategoryName("Cameras");
+            source.setBrandName("Brand");
+            source.setAverageRating(Double.valueOf(4.5));
+            source.setNumberOfReviews(Integer.valueOf(12));
+            source.setImageUrl("/medias/P00000001.jpg");
+        }
+    }
+
+    @Benchmark
+    public ProductModel findByCode(final Input input) {
+        return productService.getProductForCode(input.productCode());
+    }
+
+    @Benchmark
+    public Map<String, ProductModel> findByCodes(final Input input) {
+        return productService.getProductsForCodes(input.productCodes());
+    }
+
+    @Benchmark
+    public ProductModel findByCodeAndCatalogVersion(final Input input) {
+        return productDAO.findByCodeAndCatalogVersion(input.productCode(),
+                BenchmarkDataset.CATALOG_ID, BenchmarkDataset.CATALOG_VERSION);
+    }
+
+    @Benchmark
+    public SearchPage<ProductModel> search(final Input input) {
+        return productService.searchProducts(input.searchWord(), PAGE_SIZE, 0, false);
+    }
+
+    @Benchmark
+    public List<ProductModel> categoryListing(final Input input) {
+        return productService.getProductsForCategory(input.categoryCode());
+    }
+
+    @Benchmark
+    public boolean stockCheck(final Input input) {
+        return productService.isProductInStock(input.productCode());
+    }
+
+    @Benchmark
+    public Map<String, Boolean> bulkStockCheck(final Input input) {
+        return productService.areProductsInStock(input.productCodes());
+    }
+
+    @Benchmark
+    public ProductData facadeGetProduct(final Input input) {
+        return productFacade.getProductForCode(input.productCode());
+    }
+
+    @Benchmark
+    public List<ProductData> facadeGetProducts(final Input input) {
+        return productFacade.getProductsForCodes(input.productCodes());
+    }
+
+    @Benchmark
+    public CustomProductWsDTO occConversion(final OccInput input) {
+        final CustomProductWsDTO target = new CustomProductWsDTO();
+        customProductPopulator.populate(input.source, target);
+        return target;
+    }
+
+    /**
+     * Stand-in for the populating converter: basic fields plus the stock lookup
+     * ProductStockPopulator would do.
+     */
+    static final class BenchmarkProductConverter implements Converter<ProductModel, ProductData> {
+
+        private final BenchmarkDataset dataset;
+
+        BenchmarkProductConverter(final BenchmarkDataset dataset) {
+            this.dataset = dataset;
+        }
+
+        @Override
+        public ProductData convert(final ProductModel source) {
+            return convert(source, new ProductData());
+        }
+
+        @Override
+        public ProductData convert(final ProductModel source, final ProductData prototype) {
+            prototype.setCode(source.getCode());
+            prototype.setName(dataset.getName(source));
+            prototype.setUrl("/p/" + source.getCode());
+            final long stock = dataset.getStock(source);
+            prototype.setStockLevel(Integer.valueOf((int) stock));
+            prototype.setStockStatus(stock > 0 ? "inStock" : "outOfStock");
+            prototype.setPurchasable(stock > 0);
+            return prototype;
+        }
+    }
+}
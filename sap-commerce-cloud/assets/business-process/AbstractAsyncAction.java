@@ -0,0 +1,171 @@
+package com.example.actions;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.processengine.BusinessProcessEvent;
+import de.hybris.platform.processengine.BusinessProcessService;
+import de.hybris.platform.processengine.action.AbstractAction;
+import de.hybris.platform.processengine.model.BusinessProcessModel;
+import de.hybris.platform.servicelayer.session.SessionService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Business process action base class for slow external calls.
+ *
+ * Unlike AbstractSimpleDecisionAction, the task engine thread is not held during the call:
+ * - {@link #prepare} runs on the task thread and copies what the call needs out of the models
+ * - {@link #call} starts the I/O and returns immediately; blocking clients can be wrapped
+ *   with {@link #supplyAsync} to run on the async executor instead
+ * - The action returns WAIT; when the call completes, the event
+ *   {@code <processCode>_<resumeEvent>} is triggered on the async executor with the outcome as choice
+ *
+ * Follow the action with a wait node that branches on the choice, plus a timeout that
+ * re-runs the action in case the node restarted while the call was in flight:
+ *
+ * <pre>
+ * &lt;action id="checkPayment" bean="checkPaymentAsyncAction"&gt;
+ *     &lt;transition name="WAIT" to="waitForPaymentResult"/&gt;
+ *     &lt;transition name="NOK" to="error"/&gt;
+ * &lt;/action&gt;
+ * &lt;wait id="waitForPaymentResult" prependProcessCode="true"&gt;
+ *     &lt;case event="PaymentChecked"&gt;
+ *         &lt;choice id="OK" then="..."/&gt;
+ *         &lt;choice id="NOK" then="..."/&gt;
+ *     &lt;/case&gt;
+ *     &lt;timeout delay="PT5M" then="checkPayment"/&gt;
+ * &lt;/wait&gt;
+ * </pre>
+ *
+ * An event triggered before the process reaches the wait node is kept by the process engine,
+ * so a fast call cannot be lost. Register as a Spring bean with parent="abstractAsyncAction".
+ *
+ * @param <T> process type
+ * @param <R> request data passed from {@link #prepare} to {@link #call}
+ */
+public abstract class AbstractAsyncAction<T extends BusinessProcessModel, R> extends AbstractAction<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractAsyncAction.class);
+
+    public static final String WAIT = "WAIT";
+    public static final String OK = "OK";
+    public static final String NOK = "NOK";
+
+    private BusinessProcessService businessProcessService;
+    private SessionService sessionService;
+    private Executor asyncExecutor;
+    private String resumeEvent;
+
+    @Override
+    public String execute(final T process) throws Exception {
+        final R request;
+        try {
+            request = prepare(process);
+        } catch (final Exception e) {
+            LOG.error("Could not prepare {} for process {}", getClass().getSimpleName(), process.getCode(), e);
+            return NOK;
+        }
+        if (request == null) {
+            return NOK;
+        }
+
+        final String processCode = process.getCode();
+        final Tenant tenant = Registry.getCurrentTenant();
+        final CompletionStage<String> result;
+        try {
+            result = call(request);
+        } catch (final RuntimeException e) {
+            LOG.error("Could not start {} for process {}", getClass().getSimpleName(), processCode, e);
+            return NOK;
+        }
+
+        // Always resume on the async executor: an already completed stage would otherwise run
+        // resume() on the task thread, replacing its session and firing before WAIT is committed.
+        // If the executor rejects the resume, the wait node timeout re-runs the action.
+        result.whenCompleteAsync((choice, error) -> {
+            if (error != null) {
+                LOG.warn("{} failed for process {}", getClass().getSimpleName(), processCode, error);
+            }
+            resume(tenant, processCode, error == null && choice != null ? choice : NOK);
+        }, asyncExecutor);
+        return WAIT;
+    }
+
+    @Override
+    public Set<String> getTransitions() {
+        return new HashSet<>(Arrays.asList(WAIT, NOK));
+    }
+
+    /**
+     * Read everything the call needs. Runs on the task thread inside the process session.
+     * @param process the process
+     * @return request data, or null to leave with NOK
+     */
+    protected abstract R prepare(T process) throws Exception;
+
+    /**
+     * Start the external call. Runs outside any session and must not touch models.
+     * @param request data from {@link #prepare}
+     * @return completes with the choice to resume with, e.g. OK or NOK; a failure resumes with NOK
+     */
+    protected abstract CompletionStage<String> call(R request);
+
+    /**
+     * Run a blocking call on the async executor, off the task engine threads.
+     */
+    protected CompletionStage<String> supplyAsync(final Supplier<String> blockingCall) {
+        return CompletableFuture.supplyAsync(blockingCall, asyncExecutor);
+    }
+
+    private void resume(final Tenant tenant, final String processCode, final String choice) {
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                businessProcessService.triggerEvent(BusinessProcessEvent.builder(processCode + "_" + resumeEvent)
+                        .withChoice(choice)
+                        .build());
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final RuntimeException e) {
+            // The wait node timeout re-runs the action
+            LOG.error("Could not resume process {} with {}", processCode, choice, e);
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    protected SessionService getSessionService() {
+        return sessionService;
+    }
+
+    // Setter injection
+    public void setBusinessProcessService(final BusinessProcessService businessProcessService) {
+        this.businessProcessService = businessProcessService;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setAsyncExecutor(final Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * @param resumeEvent event name without process code, e.g. PaymentChecked
+     */
+    public void setResumeEvent(final String resumeEvent) {
+        this.resumeEvent = resumeEvent;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.actions;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.processengine.model.BusinessProcessModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Business process action that handles many processes in one go.
+ *
+ * Processes reaching the action are queued on this node and the action returns WAIT.
+ * Every windowMillis, or as soon as maxBatchSize processes are queued, the batch is loaded
+ * with one query and {@link #executeBatch} runs once in a single transaction, e.g. reading
+ * the stock of all ordered products at once. Each process is then resumed with its own
+ * OK / NOK choice, exactly like AbstractAsyncAction.
+ *
+ * If the batch transaction fails, every process of the batch is retried in its own
+ * transaction, so one bad order cannot fail the others. NOK is reserved for the business
+ * outcome returned by {@link #executeBatch}: a process whose batch or retry fails technically
+ * (database error, session setup) is not resumed at all, and the timeout of the following
+ * wait node re-runs the action, as for processes queued on a node that goes down.
+ *
+ * Register as a Spring bean with parent="abstractBatchingAction".
+ *
+ * @param <T> process type
+ */
+public abstract class AbstractBatchingAction<T extends BusinessProcessModel> extends AbstractAsyncAction<T, String> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractBatchingAction.class);
+
+    private FlexibleSearchService flexibleSearchService;
+    private UserService userService;
+    private TransactionTemplate transactionTemplate;
+    private long windowMillis = 500L;
+    private int maxBatchSize = 200;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile ScheduledExecutorService scheduler;
+    private volatile Tenant tenant;
+
+    /**
+     * Run the business logic for a batch of processes. Runs in one transaction.
+     * @param processes processes of the batch
+     * @return choice (OK / NOK) per process code; missing codes resume with NOK
+     */
+    protected abstract Map<String, String> executeBatch(List<T> processes) throws Exception;
+
+    @Override
+    protected String prepare(final T process) {
+        return process.getCode();
+    }
+
+    @Override
+    protected CompletionStage<String> call(final String processCode) {
+        final Pending pending = new Pending(processCode);
+        queue.add(pending);
+        final ScheduledExecutorService executor = getScheduler();
+        if (queued.incrementAndGet() >= maxBatchSize) {
+            executor.execute(this::flush);
+        }
+        return pending.result;
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            synchronized (this) {
+                executor = scheduler;
+                if (executor == null) {
+                    tenant = Registry.getCurrentTenant();
+                    executor = Executors.newSingleThreadScheduledExecutor(
+                            new CustomizableThreadFactory(getClass().getSimpleName() + "-"));
+                    executor.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis,
+                            TimeUnit.MILLISECONDS);
+                    scheduler = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void flush() {
+        List<Pending> batch;
+        while (!(batch = drain()).isEmpty()) {
+            final Map<String, String> choices;
+            final Set<String> failed = new HashSet<>();
+            Registry.setCurrentTenant(tenant);
+            try {
+                getSessionService().createNewSession();
+                try {
+                    userService.setCurrentUser(userService.getAdminUser());
+                    choices = executeInTransaction(batch, failed);
+                } finally {
+                    getSessionService().closeCurrentSession();
+                }
+            } catch (final Exception e) {
+                // Not a business outcome: leave the whole batch to the wait node timeout
+                LOG.error("{} batch of {} processes failed, left to the wait node timeout",
+                        getClass().getSimpleName(), batch.size(), e);
+                continue;
+            } finally {
+                Registry.unsetCurrentTenant();
+            }
+            // Outside the batch session: each completion triggers its process event
+            for (final Pending pending : batch) {
+                if (failed.contains(pending.processCode)) {
+                    continue;
+                }
+                final String choice = choices.get(pending.processCode);
+                pending.result.complete(choice == null ? NOK : choice);
+            }
+        }
+    }
+
+    /**
+     * @param failed receives the codes of processes whose retry failed; they are not resumed
+     */
+    private Map<String, String> executeInTransaction(final List<Pending> batch, final Set<String> failed) {
+        final List<T> processes = loadProcesses(batch);
+        if (processes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return transactionTemplate.execute(status -> executeBatchUnchecked(processes));
+        } catch (final RuntimeException e) {
+            LOG.warn("{} batch of {} processes failed, retrying one by one", getClass().getSimpleName(),
+                    processes.size(), e);
+        }
+
+        final Map<String, String> choices = new HashMap<>();
+        for (final T process : processes) {
+            try {
+                // Reload: the models may hold changes of the rolled back batch
+                getModelService().refresh(process);
+                choices.putAll(transactionTemplate.execute(
+                        status -> executeBatchUnchecked(Collections.singletonList(process))));
+            } catch (final RuntimeException e) {
+                failed.add(process.getCode());
+                LOG.error("{} failed for process {}, left to the wait node timeout", getClass().getSimpleName(),
+                        process.getCode(), e);
+            }
+        }
+        return choices;
+    }
+
+    private Map<String, String> executeBatchUnchecked(final List<T> processes) {
+        try {
+            final Map<String, String> choices = executeBatch(processes);
+            return choices == null ? Collections.emptyMap() : choices;
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<T> loadProcesses(final List<Pending> batch) {
+        final List<String> codes = new ArrayList<>(batch.size());
+        for (final Pending pending : batch) {
+            codes.add(pending.processCode);
+        }
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(
+                "SELECT {pk} FROM {BusinessProcess} WHERE {code} IN (?codes)");
+        query.addQueryParameter("codes", codes);
+        query.setNeedTotal(false);
+        return flexibleSearchService.<T>search(query).getResult();
+    }
+
+    private List<Pending> drain() {
+        final List<Pending> batch = new ArrayList<>(maxBatchSize);
+        Pending pending;
+        while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(pending);
+        }
+        return batch;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setTransactionTemplate(final TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void setWindowMillis(final long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void setMaxBatchSize(final int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    private static final class Pending {
+        private final String processCode;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Pending(final String processCode) {
+            this.processCode = processCode;
+        }
+    }
+}
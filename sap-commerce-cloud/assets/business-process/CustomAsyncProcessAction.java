@@ -0,0 +1,32 @@
+package com.example.actions;
+
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Async business process action template using AbstractAsyncAction.
+ *
+ * Use for actions dominated by external calls (payment, fraud check, ERP export).
+ * Register as a Spring bean with parent="abstractAsyncAction", set resumeEvent and
+ * follow the action with a wait node on that event (see custom-process-parallel.xml).
+ */
+public class CustomAsyncProcessAction extends AbstractAsyncAction<OrderProcessModel, String> {
+
+    @Override
+    protected String prepare(final OrderProcessModel process) {
+        final OrderModel order = process.getOrder();
+        // TODO: Copy the data the external call needs; models must not be used in call()
+        return order == null ? null : order.getCode();
+    }
+
+    @Override
+    protected CompletionStage<String> call(final String orderCode) {
+        // TODO: Replace with the external call
+        // Non-blocking client: return its future mapped to OK / NOK
+        // Blocking client: return supplyAsync(() -> client.check(orderCode) ? OK : NOK);
+        return CompletableFuture.completedFuture(OK);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.actions;
+
+import de.hybris.platform.core.model.order.OrderModel;
+import de.hybris.platform.orderprocessing.model.OrderProcessModel;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batching business process action template using AbstractBatchingAction.
+ *
+ * Use for steps that many orders pass at the same time and that profit from bulk reads
+ * and a single commit, e.g. stock allocation during a flash sale.
+ * Register as a Spring bean with parent="abstractBatchingAction", set resumeEvent and
+ * follow the action with a wait node on that event (see custom-process-parallel.xml).
+ */
+public class CustomBatchProcessAction extends AbstractBatchingAction<OrderProcessModel> {
+
+    @Override
+    protected Map<String, String> executeBatch(final List<OrderProcessModel> processes) {
+        final Map<String, String> choices = new HashMap<>();
+
+        // TODO: Replace with actual business logic
+        // Examples:
+        //   - Collect the products of all orders and read their stock levels with one query
+        //   - Reserve stock for each order, saving all changed stock levels with saveAll
+        for (final OrderProcessModel process : processes) {
+            final OrderModel order = process.getOrder();
+            choices.put(process.getCode(), order == null ? NOK : OK);
+        }
+        return choices;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.events;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.processengine.BusinessProcessService;
+import de.hybris.platform.processengine.enums.ProcessState;
+import de.hybris.platform.servicelayer.event.impl.AbstractEventListener;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes processes waiting in a StockAvailable wait node when their products are restocked.
+ *
+ * Instead of one event per waiting order from the restocking code:
+ * - {@link StockAvailableEvent}s are collected per product code; repeated facts for the same
+ *   product within windowMillis count once
+ * - Per window, one query finds the running processes whose order contains one of the
+ *   products (indexed joins on order, product and code), oldest first; a second query keeps
+ *   those with an open StockAvailable condition, looked up by the condition ids computed
+ *   here ({@code uniqueID IN (...)}) so the TaskCondition index is used. A process waiting
+ *   for several restocked products is woken once
+ * - Processes are woken in batches of wakeBatchSize with wakeIntervalMillis in between,
+ *   so a popular SKU does not flood the task engine
+ *
+ * Publish from the code that increases stock, e.g.
+ * {@code eventService.publishEvent(new StockAvailableEvent(productCode))}.
+ */
+public class StockAvailableDispatcher extends AbstractEventListener<StockAvailableEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockAvailableDispatcher.class);
+
+    private static final String RUNNING_PROCESSES_QUERY =
+        "SELECT DISTINCT {p.code}, {p.creationtime} FROM {OrderProcess AS p " +
+        "JOIN OrderEntry AS e ON {e.order} = {p.order} " +
+        "JOIN Product AS pr ON {e.product} = {pr.pk}} " +
+        "WHERE {pr.code} IN (?productCodes) AND {p.state} = ?running " +
+        "ORDER BY {p.creationtime} ASC";
+
+    private static final String OPEN_CONDITIONS_QUERY =
+        "SELECT {uniqueID} FROM {TaskCondition} " +
+        "WHERE {uniqueID} IN (?conditionIds) AND ({fulfilled} IS NULL OR {fulfilled} = ?notFulfilled)";
+
+    private FlexibleSearchService flexibleSearchService;
+    private BusinessProcessService businessProcessService;
+    private SessionService sessionService;
+    private UserService userService;
+    private String eventName = "StockAvailable";
+    private long windowMillis = 1000L;
+    private int wakeBatchSize = 100;
+    private long wakeIntervalMillis = 200L;
+    private int maxProductsPerQuery = 500;
+
+    private final Set<String> pendingProducts = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService scheduler;
+    private volatile Tenant tenant;
+
+    @Override
+    protected void onEvent(final StockAvailableEvent event) {
+        if (event.getProductCode() != null) {
+            pendingProducts.add(event.getProductCode());
+            startScheduler();
+        }
+    }
+
+    private void startScheduler() {
+        if (scheduler == null) {
+            synchronized (this) {
+                if (scheduler == null) {
+                    tenant = Registry.getCurrentTenant();
+                    final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                            new CustomizableThreadFactory("stock-available-"));
+                    executor.scheduleWithFixedDelay(this::dispatchInContext, windowMillis, windowMillis,
+                            TimeUnit.MILLISECONDS);
+                    scheduler = executor;
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void dispatchInContext() {
+        if (pendingProducts.isEmpty()) {
+            return;
+        }
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                userService.setCurrentUser(userService.getAdminUser());
+                dispatch();
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final RuntimeException e) {
+            LOG.error("Could not wake processes waiting for stock", e);
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    private void dispatch() throws InterruptedException {
+        final List<String> productCodes = drain();
+        final Set<String> processCodes = new LinkedHashSet<>();
+        for (int from = 0; from < productCodes.size(); from += maxProductsPerQuery) {
+            processCodes.addAll(findWaitingProcesses(
+                    productCodes.subList(from, Math.min(from + maxProductsPerQuery, productCodes.size()))));
+        }
+        LOG.debug("{} products restocked, waking {} processes", productCodes.size(), processCodes.size());
+
+        int woken = 0;
+        for (final String processCode : processCodes) {
+            if (woken > 0 && woken % wakeBatchSize == 0) {
+                Thread.sleep(wakeIntervalMillis);
+            }
+            try {
+                businessProcessService.triggerEvent(processCode + "_" + eventName);
+            } catch (final RuntimeException e) {
+                LOG.warn("Could not wake process {}", processCode, e);
+            }
+            woken++;
+        }
+    }
+
+    private List<String> findWaitingProcesses(final List<String> productCodes) {
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(RUNNING_PROCESSES_QUERY);
+        query.addQueryParameter("productCodes", productCodes);
+        query.addQueryParameter("running", ProcessState.RUNNING);
+        query.setResultClassList(Arrays.asList(String.class, Date.class));
+        query.setNeedTotal(false);
+        // Process states change all the time; a cached result would wake finished processes
+        query.setDisableCaching(true);
+
+        // Condition id per running process, in process age order
+        final Map<String, String> processCodesByConditionId = new LinkedHashMap<>();
+        for (final List<Object> row : flexibleSearchService.<List<Object>>search(query).getResult()) {
+            final String processCode = (String) row.get(0);
+            processCodesByConditionId.put(processCode + "_" + eventName, processCode);
+        }
+
+        final Set<String> openConditionIds = findOpenConditions(new ArrayList<>(processCodesByConditionId.keySet()));
+        final List<String> processCodes = new ArrayList<>(openConditionIds.size());
+        for (final Map.Entry<String, String> entry : processCodesByConditionId.entrySet()) {
+            if (openConditionIds.contains(entry.getKey())) {
+                processCodes.add(entry.getValue());
+            }
+        }
+        return processCodes;
+    }
+
+    private Set<String> findOpenConditions(final List<String> conditionIds) {
+        final Set<String> open = new HashSet<>();
+        for (int from = 0; from < conditionIds.size(); from += maxProductsPerQuery) {
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(OPEN_CONDITIONS_QUERY);
+            query.addQueryParameter("conditionIds",
+                    conditionIds.subList(from, Math.min(from + maxProductsPerQuery, conditionIds.size())));
+            query.addQueryParameter("notFulfilled", Boolean.FALSE);
+            query.setResultClassList(Collections.singletonList(String.class));
+            query.setNeedTotal(false);
+            query.setDisableCaching(true);
+            open.addAll(flexibleSearchService.<String>search(query).getResult());
+        }
+        return open;
+    }
+
+    private List<String> drain() {
+        final List<String> drained = new ArrayList<>();
+        final Iterator<String> iterator = pendingProducts.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setBusinessProcessService(final BusinessProcessService businessProcessService) {
+        this.businessProcessService = businessProcessService;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * @param eventName wait node event without process code, default StockAvailable
+     */
+    public void setEventName(final String eventName) {
+        this.eventName = eventName;
+    }
+
+    public void setWindowMillis(final long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void setWakeBatchSize(final int wakeBatchSize) {
+        this.wakeBatchSize = Math.max(1, wakeBatchSize);
+    }
+
+    public void setWakeIntervalMillis(final long wakeIntervalMillis) {
+        this.wakeIntervalMillis = wakeIntervalMillis;
+    }
+
+    /**
+     * @param maxProductsPerQuery values per IN clause, for product codes and condition ids
+     */
+    public void setMaxProductsPerQuery(final int maxProductsPerQuery) {
+        this.maxProductsPerQuery = maxProductsPerQuery;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.events;
+
+import de.hybris.platform.servicelayer.event.events.AbstractEvent;
+
+/**
+ * Stock of a product became available again, e.g. after a restock.
+ *
+ * Published once per product; StockAvailableDispatcher wakes the processes waiting for it.
+ */
+public class StockAvailableEvent extends AbstractEvent {
+
+    private final String productCode;
+
+    public StockAvailableEvent(final String productCode) {
+        this.productCode = productCode;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.jobs;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
+import de.hybris.platform.cronjob.model.CronJobModel;
+import de.hybris.platform.servicelayer.cronjob.AbstractJobPerformable;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.SearchResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel, chunked job performable.
+ *
+ * How it works:
+ * - The job thread pages item PKs from {@link #getPkQuery} (keyset pagination on PK, no OFFSET)
+ * - Each page is cut into chunks of {@code chunkSize}; chunks go to a fixed pool of
+ *   {@code threadCount} workers, with at most two chunks queued per worker
+ * - Each worker runs with the job's tenant and a fresh session carrying a copy of the
+ *   job's session attributes (user, language, catalog versions)
+ * - Each chunk is processed in one transaction; if it fails it is rolled back and
+ *   retried item by item, so one bad item costs one error, not a whole chunk
+ * - Abort requests are checked before every chunk is handed out; chunks already
+ *   running complete, then the job ends as ABORTED
+ *
+ * Checkpointing:
+ * - Every {@code checkpointIntervalSeconds} the job saves on its CronJob the last PK below
+ *   which every chunk has finished ({@code checkpointPk}) and the number of such chunks
+ *   ({@code checkpointChunkIndex}); chunks finish out of order, so this is a low watermark
+ * - A chunk with errors never counts as finished: the checkpoint stops below it, so a resumed
+ *   run retries its failed items (and redoes the chunks after it) instead of skipping them
+ * - The next run continues after {@code checkpointPk}; on abort or error the checkpoint is
+ *   saved immediately, on successful completion it is cleared
+ * - Set {@code forceRestart} on the CronJob to ignore the checkpoint once and start from the first item
+ * - After a crash, up to one interval of work is redone, so processItem should be idempotent
+ *
+ * Subclasses provide the PK query and {@link #processItem}. processItem must be thread-safe:
+ * it is called concurrently from several workers.
+ *
+ * @param <T> the CronJob type
+ * @param <M> the type of the items processed
+ */
+public abstract class AbstractBatchJobPerformable<T extends CronJobModel, M extends ItemModel>
+        extends AbstractJobPerformable<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractBatchJobPerformable.class);
+
+    private static final int DEFAULT_THREAD_COUNT = 4;
+    private static final int DEFAULT_CHUNK_SIZE = 100;
+    private static final int DEFAULT_PAGE_SIZE = 10_000;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_SECONDS = 60L;
+
+    private TransactionTemplate transactionTemplate;
+    private int threadCount = DEFAULT_THREAD_COUNT;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private long checkpointIntervalSeconds = DEFAULT_CHECKPOINT_INTERVAL_SECONDS;
+
+    /**
+     * FlexibleSearch query returning the PKs of the items to process. It must select only
+     * {@code {pk}}, restrict to {@code {pk} > ?lastPk} and order by {@code {pk} ASC}, e.g.
+     * {@code SELECT {pk} FROM {Cart} WHERE {modifiedtime} < ?cutoff AND {pk} > ?lastPk ORDER BY {pk} ASC}
+     * @param cronJob the running CronJob
+     * @return the query string
+     */
+    protected abstract String getPkQuery(T cronJob);
+
+    /**
+     * Parameters for {@link #getPkQuery}, other than {@code lastPk}.
+     * @param cronJob the running CronJob
+     * @return query parameters; empty by default
+     */
+    protected Map<String, Object> getPkQueryParameters(final T cronJob) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Process one item. Runs on a worker thread inside the chunk's transaction.
+     * @param item the item
+     * @param cronJob the running CronJob; read-only, shared between workers
+     * @throws Exception to count the item as an error
+     */
+    protected abstract void processItem(M item, T cronJob) throws Exception;
+
+    @Override
+    public PerformResult perform(final T cronJob) {
+        LOG.info("Starting job: {} ({} threads, chunk size {})", cronJob.getCode(), threadCount, chunkSize);
+        final long start = System.currentTimeMillis();
+
+        final Tenant tenant = Registry.getCurrentTenant();
+        final Map<String, Object> sessionAttributes = new HashMap<>(sessionService.getAllAttributes());
+        final Counts counts = new Counts();
+        final CheckpointTracker checkpoint = startCheckpoint(cronJob);
+
+        // Bounds queued work: the job thread blocks instead of paging ahead without limit
+        final int maxInFlight = threadCount * 2;
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(threadCount, new CustomizableThreadFactory(cronJob.getCode() + "-"));
+
+        boolean aborted = false;
+        long lastCheckpointSave = System.currentTimeMillis();
+        try {
+            long lastPk = checkpoint.getSafePk();
+            List<Long> page;
+            do {
+                page = fetchPkPage(cronJob, lastPk);
+                for (int from = 0; from < page.size(); from += chunkSize) {
+                    if (clearAbortRequestedIfNeeded(cronJob)) {
+                        aborted = true;
+                        break;
+                    }
+                    if (isCheckpointDue(lastCheckpointSave)) {
+                        saveCheckpoint(cronJob, checkpoint);
+                        lastCheckpointSave = System.currentTimeMillis();
+                    }
+                    final List<Long> chunk = new ArrayList<>(page.subList(from, Math.min(from + chunkSize, page.size())));
+                    final int sequence = checkpoint.submitted(chunk.get(chunk.size() - 1).longValue());
+                    inFlight.acquire();
+                    executor.execute(() -> {
+                        boolean clean = false;
+                        try {
+                            clean = processChunkInContext(tenant, sessionAttributes, chunk, cronJob, counts);
+                        } finally {
+                            checkpoint.completed(sequence, clean);
+                            inFlight.release();
+                        }
+                    });
+                }
+                if (!page.isEmpty()) {
+                    lastPk = page.get(page.size() - 1).longValue();
+                }
+            } while (!aborted && page.size() == pageSize);
+
+            // All permits back means every submitted chunk has finished
+            inFlight.acquire(maxInFlight);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Job {} interrupted", cronJob.getCode(), e);
+            saveCheckpointQuietly(cronJob, checkpoint);
+            return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+        } catch (final Exception e) {
+            LOG.error("Job failed with unexpected error", e);
+            saveCheckpointQuietly(cronJob, checkpoint);
+            return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Job {} {}. Processed: {}, Errors: {}, Duration: {} ms", cronJob.getCode(),
+                aborted ? "aborted" : "completed", counts.processed.get(), counts.errors.get(),
+                System.currentTimeMillis() - start);
+
+        if (aborted) {
+            // Every submitted chunk has finished: the next run resumes where this one stopped, or at its first failed chunk
+            saveCheckpointQuietly(cronJob, checkpoint);
+            return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+        }
+        clearCheckpoint(cronJob);
+        if (counts.errors.get() > 0) {
+            return new PerformResult(CronJobResult.WARNING, CronJobStatus.FINISHED);
+        }
+        return new PerformResult(CronJobResult.SUCCESS, CronJobStatus.FINISHED);
+    }
+
+    @Override
+    public boolean isAbortable() {
+        return true;
+    }
+
+    private CheckpointTracker startCheckpoint(final T cronJob) {
+        if (Boolean.TRUE.equals(cronJob.getForceRestart())) {
+            LOG.info("Job {}: forced restart, discarding checkpoint", cronJob.getCode());
+            cronJob.setForceRestart(Boolean.FALSE);
+            clearCheckpoint(cronJob);
+            return new CheckpointTracker(0L, 0);
+        }
+        final Long checkpointPk = cronJob.getCheckpointPk();
+        if (checkpointPk == null) {
+            return new CheckpointTracker(0L, 0);
+        }
+        final Integer checkpointChunkIndex = cronJob.getCheckpointChunkIndex();
+        LOG.info("Job {}: resuming after PK {} ({} chunks done in earlier runs)", cronJob.getCode(), checkpointPk,
+                checkpointChunkIndex);
+        return new CheckpointTracker(checkpointPk.longValue(),
+                checkpointChunkIndex == null ? 0 : checkpointChunkIndex.intValue());
+    }
+
+    private boolean isCheckpointDue(final long lastSave) {
+        return checkpointIntervalSeconds > 0
+                && System.currentTimeMillis() - lastSave >= checkpointIntervalSeconds * 1000L;
+    }
+
+    private void saveCheckpoint(final T cronJob, final CheckpointTracker checkpoint) {
+        cronJob.setCheckpointPk(Long.valueOf(checkpoint.getSafePk()));
+        cronJob.setCheckpointChunkIndex(Integer.valueOf(checkpoint.getSafeChunkIndex()));
+        modelService.save(cronJob);
+    }
+
+    private void saveCheckpointQuietly(final T cronJob, final CheckpointTracker checkpoint) {
+        try {
+            saveCheckpoint(cronJob, checkpoint);
+        } catch (final RuntimeException e) {
+            // The previous checkpoint stays; the next run redoes a little more
+            LOG.warn("Could not save checkpoint for job {}", cronJob.getCode(), e);
+        }
+    }
+
+    private void clearCheckpoint(final T cronJob) {
+        cronJob.setCheckpointPk(null);
+        cronJob.setCheckpointChunkIndex(null);
+        modelService.save(cronJob);
+    }
+
+    private List<Long> fetchPkPage(final T cronJob, final long lastPk) {
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(getPkQuery(cronJob));
+        query.addQueryParameters(getPkQueryParameters(cronJob));
+        query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+        query.setResultClassList(Collections.singletonList(Long.class));
+        query.setCount(pageSize);
+        query.setNeedTotal(false);
+
+        final SearchResult<Long> result = flexibleSearchService.search(query);
+        return result.getResult();
+    }
+
+    /**
+     * @return true if every item of the chunk was processed without error
+     */
+    private boolean processChunkInContext(final Tenant tenant, final Map<String, Object> sessionAttributes,
+            final List<Long> pks, final T cronJob, final Counts counts) {
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                sessionAttributes.forEach(sessionService::setAttribute);
+                return processChunk(pks, cronJob, counts);
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final RuntimeException e) {
+            LOG.error("Could not process chunk starting at PK {}", pks.get(0), e);
+            counts.errors.addAndGet(pks.size());
+            return false;
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    private boolean processChunk(final List<Long> pks, final T cronJob, final Counts counts) {
+        final List<M> items = loadItems(pks);
+        try {
+            transactionTemplate.execute(status -> {
+                for (final M item : items) {
+                    processItemUnchecked(item, cronJob);
+                }
+                return null;
+            });
+            counts.processed.addAndGet(items.size());
+            return true;
+        } catch (final RuntimeException e) {
+            LOG.warn("Chunk starting at PK {} failed, retrying item by item", pks.get(0), e);
+        }
+
+        // The chunk was rolled back: process items one by one to isolate the bad ones
+        boolean clean = true;
+        for (final M item : items) {
+            try {
+                // Reload: the model still holds the values of the rolled back attempt, but no
+                // longer as changes, so setting them again would save nothing
+                modelService.refresh(item);
+            } catch (final ModelLoadingException e) {
+                LOG.debug("Item {} no longer exists, skipping", item.getPk());
+                continue;
+            }
+            try {
+                transactionTemplate.execute(status -> {
+                    processItemUnchecked(item, cronJob);
+                    return null;
+                });
+                counts.processed.incrementAndGet();
+            } catch (final RuntimeException e) {
+                LOG.error("Error processing item {}", item.getPk(), e);
+                counts.errors.incrementAndGet();
+                clean = false;
+            }
+        }
+        return clean;
+    }
+
+    private List<M> loadItems(final List<Long> pks) {
+        final List<M> items = new ArrayList<>(pks.size());
+        for (final Long pk : pks) {
+            try {
+                items.add(modelService.get(PK.fromLong(pk.longValue())));
+            } catch (final ModelLoadingException e) {
+                // Removed since the PK page was read; nothing left to process
+                LOG.debug("Item {} no longer exists, skipping", pk);
+            }
+        }
+        return items;
+    }
+
+    private void processItemUnchecked(final M item, final T cronJob) {
+        try {
+            processItem(item, cronJob);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException("Error processing item " + item.getPk(), e);
+        }
+    }
+
+    // Setter injection
+    public void setTransactionTemplate(final TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void setThreadCount(final int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setPageSize(final int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param checkpointIntervalSeconds seconds between checkpoint saves; 0 saves only on abort and error
+     */
+    public void setCheckpointIntervalSeconds(final long checkpointIntervalSeconds) {
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+    }
+
+    /**
+     * Tracks the low watermark of finished chunks. Chunks are submitted in PK order and may
+     * finish in any order; the safe PK only advances over a contiguous prefix of finished chunks.
+     * A chunk completed with errors is never marked finished, so the safe PK stays below it.
+     */
+    private static final class CheckpointTracker {
+        // Submitted chunks not yet folded into the safe point: sequence to last PK
+        private final NavigableMap<Integer, Long> pendingLastPks = new TreeMap<>();
+        private final Set<Integer> finished = new HashSet<>();
+        private int nextSequence;
+        private long safePk;
+        private int safeChunkIndex;
+
+        CheckpointTracker(final long safePk, final int safeChunkIndex) {
+            this.safePk = safePk;
+            this.safeChunkIndex = safeChunkIndex;
+        }
+
+        synchronized int submitted(final long lastPk) {
+            final int sequence = nextSequence++;
+            pendingLastPks.put(Integer.valueOf(sequence), Long.valueOf(lastPk));
+            return sequence;
+        }
+
+        synchronized void completed(final int sequence, final boolean clean) {
+            if (!clean) {
+                return;
+            }
+            finished.add(Integer.valueOf(sequence));
+            while (!pendingLastPks.isEmpty() && finished.remove(pendingLastPks.firstKey())) {
+                safePk = pendingLastPks.pollFirstEntry().getValue().longValue();
+                safeChunkIndex++;
+            }
+        }
+
+        synchronized long getSafePk() {
+            return safePk;
+        }
+
+        synchronized int getSafeChunkIndex() {
+            return safeChunkIndex;
+        }
+    }
+
+    private static final class Counts {
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+    }
+}
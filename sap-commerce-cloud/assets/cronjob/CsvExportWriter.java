@@ -0,0 +1,68 @@
+package com.example.jobs.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV: header line, comma separator, fields quoted only when they contain
+ * a separator, quote or line break.
+ */
+public class CsvExportWriter implements ExportWriter {
+
+    private final Writer out;
+    private final List<String> columns;
+
+    public CsvExportWriter(final Writer out, final List<String> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        writeLine(columns);
+    }
+
+    @Override
+    public void writeRow(final List<Object> values) throws IOException {
+        writeLine(values);
+    }
+
+    @Override
+    public void writeFooter() {
+        // Nothing after the last line
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeLine(final List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            final Object value = values.get(i);
+            if (value != null) {
+                writeField(ExportWriter.format(value));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void writeField(final String field) throws IOException {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        out.write(field.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
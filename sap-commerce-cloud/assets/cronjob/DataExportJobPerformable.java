@@ -0,0 +1,490 @@
+package com.example.jobs;
+
+import com.example.enums.ExportFormat;
+import com.example.jobs.export.ExportPartition;
+import com.example.jobs.export.ExportPartitionTaskRunner;
+import com.example.jobs.export.ExportWatermark;
+import com.example.jobs.export.ExportWriter;
+import com.example.jobs.export.ProductExporter;
+import com.example.model.DataExportCronJobModel;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.cronjob.enums.CronJobResult;
+import de.hybris.platform.cronjob.enums.CronJobStatus;
+import de.hybris.platform.servicelayer.cronjob.AbstractJobPerformable;
+import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.task.TaskModel;
+import de.hybris.platform.task.TaskService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streaming product export for DataExportCronJob.
+ *
+ * How it works:
+ * - Rows are streamed by ProductExporter straight into the output; memory use is one page,
+ *   whatever the catalog size
+ * - Output goes through a FileChannel with a 64 KB buffer, optionally gzip-compressed
+ * - The file is written as {@code <name>.tmp} and renamed atomically when complete, so
+ *   consumers polling the directory never see a partial file
+ * - {@code maxRecords} caps the number of rows; null or 0 means no limit
+ * - Abort requests are checked once per page; an aborted export leaves no file behind
+ *
+ * Partitioned mode ({@code partitionCount > 1}):
+ * - The PK range is split into partitions of equal row count
+ * - Each partition writes a part file (rows only); with {@code distributePartitions} the
+ *   partitions run as TaskService tasks on any cluster node, otherwise on local threads.
+ *   Both report back the same way: a finished part file or a {@code .failed} file
+ * - This job waits for all parts, then concatenates them in order between one header and
+ *   one footer, compressing if requested
+ * - Distributed mode needs {@code exportPath} on storage shared by all nodes
+ * - On abort, failure or timeout a {@code .abort} marker is written and tasks that have not
+ *   started are removed. The marker stays in place: partitions still running, or starting
+ *   late, see it and delete their own output. Markers older than {@code partitionTimeoutSeconds}
+ *   are cleaned up by the next partitioned run of the job
+ *
+ * Delta mode ({@code deltaMode}):
+ * - Exports only products modified after the high-water mark stored on the CronJob
+ *   ({@code deltaModifiedTime} + {@code deltaPk} as tiebreaker), in (modifiedtime, PK) order
+ * - Writes a {@code .tombstones} file with products removed since the previous run, from the
+ *   ProductTombstone items recorded by ProductTombstoneRemoveInterceptor
+ * - The marks advance only after both files are in place; with {@code maxRecords} set, the
+ *   next run continues where this one stopped. The first run exports everything
+ * - Always a single pass; {@code partitionCount} is ignored
+ */
+public class DataExportJobPerformable extends AbstractJobPerformable<DataExportCronJobModel> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataExportJobPerformable.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 1000L;
+    private static final int DEFAULT_PARTITION_THREADS = 4;
+    private static final long DEFAULT_PARTITION_TIMEOUT_SECONDS = 4 * 60 * 60L;
+    private static final long DEFAULT_DELTA_SAFETY_LAG_SECONDS = 60L;
+
+    private ProductExporter productExporter;
+    private ExportPartitionTaskRunner exportPartitionTaskRunner;
+    private TaskService taskService;
+    private String partitionTaskRunnerBean = "exportPartitionTaskRunner";
+    private String partitionNodeGroup;
+    private int partitionThreads = DEFAULT_PARTITION_THREADS;
+    private long partitionTimeoutSeconds = DEFAULT_PARTITION_TIMEOUT_SECONDS;
+    private long deltaSafetyLagSeconds = DEFAULT_DELTA_SAFETY_LAG_SECONDS;
+
+    @Override
+    public PerformResult perform(final DataExportCronJobModel cronJob) {
+        if (cronJob.getExportPath() == null) {
+            LOG.error("Job {} has no exportPath", cronJob.getCode());
+            return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+        }
+
+        final ExportFormat format = cronJob.getExportFormat() == null ? ExportFormat.CSV : cronJob.getExportFormat();
+        final boolean compress = Boolean.TRUE.equals(cronJob.getCompress());
+        final Path directory = Paths.get(cronJob.getExportPath());
+        final Path target = directory.resolve(fileName(cronJob, format, compress));
+        final Path temp = directory.resolve(target.getFileName() + ".tmp");
+        final long limit = cronJob.getMaxRecords() == null || cronJob.getMaxRecords().intValue() <= 0
+                ? Long.MAX_VALUE : cronJob.getMaxRecords().longValue();
+        final int partitionCount = cronJob.getPartitionCount() == null ? 1 : cronJob.getPartitionCount().intValue();
+
+        LOG.info("Exporting up to {} records to {} ({} partitions)", limit == Long.MAX_VALUE ? "all" : limit, target,
+                partitionCount);
+        final long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(directory);
+
+            final boolean delta = Boolean.TRUE.equals(cronJob.getDeltaMode());
+            final ExportWatermark modified = new ExportWatermark(cronJob.getDeltaModifiedTime(),
+                    cronJob.getDeltaPk() == null ? 0L : cronJob.getDeltaPk().longValue());
+            final ExportWatermark removed = new ExportWatermark(cronJob.getTombstoneTime(),
+                    cronJob.getTombstonePk() == null ? 0L : cronJob.getTombstonePk().longValue());
+
+            // Rows for a single file, merged bytes for partitions; only ABORTED matters here
+            final long exported;
+            if (delta) {
+                exported = exportDelta(cronJob, format, compress, target, temp, limit, modified, removed);
+            } else if (partitionCount > 1) {
+                exported = exportPartitioned(cronJob, format, compress, target, temp, limit, partitionCount);
+            } else {
+                exported = exportSingle(cronJob, format, compress, temp, limit);
+            }
+
+            if (exported == ProductExporter.ABORTED) {
+                LOG.info("Export {} aborted by request", cronJob.getCode());
+                Files.deleteIfExists(temp);
+                return new PerformResult(CronJobResult.UNKNOWN, CronJobStatus.ABORTED);
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            if (delta) {
+                // Only now are both files in place; a failure before this point re-exports the same delta
+                saveWatermarks(cronJob, modified, removed);
+            }
+            LOG.info("Export {} written to {} in {} ms", cronJob.getCode(), target, System.currentTimeMillis() - start);
+            return new PerformResult(CronJobResult.SUCCESS, CronJobStatus.FINISHED);
+
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Export {} interrupted", cronJob.getCode(), e);
+            deleteQuietly(temp);
+            return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+        } catch (final IOException | RuntimeException e) {
+            LOG.error("Export {} failed", cronJob.getCode(), e);
+            deleteQuietly(temp);
+            return new PerformResult(CronJobResult.ERROR, CronJobStatus.ABORTED);
+        }
+    }
+
+    @Override
+    public boolean isAbortable() {
+        return true;
+    }
+
+    private long exportSingle(final DataExportCronJobModel cronJob, final ExportFormat format, final boolean compress,
+            final Path temp, final long limit) throws IOException {
+        try (ExportWriter writer = ProductExporter.createWriter(
+                ProductExporter.openWriter(ProductExporter.openStream(temp, compress)), format.getCode())) {
+            writer.writeHeader();
+            final long exported = productExporter.exportRange(0L, Long.MAX_VALUE, limit, writer,
+                    () -> clearAbortRequestedIfNeeded(cronJob));
+            if (exported != ProductExporter.ABORTED) {
+                writer.writeFooter();
+                LOG.info("Exported {} records", exported);
+            }
+            return exported;
+        }
+    }
+
+    /**
+     * Export products changed since the last successful delta run, plus a tombstone file
+     * for products removed since then. The tombstone file is moved into place here,
+     * the main file by the caller.
+     */
+    private long exportDelta(final DataExportCronJobModel cronJob, final ExportFormat format, final boolean compress,
+            final Path target, final Path temp, final long limit, final ExportWatermark modified,
+            final ExportWatermark removed) throws IOException {
+        final Date cutoff = new Date(System.currentTimeMillis() - deltaSafetyLagSeconds * 1000L);
+        final Path tombstoneTarget = target.resolveSibling(tombstoneFileName(target, format));
+        final Path tombstoneTemp = tombstoneTarget.resolveSibling(tombstoneTarget.getFileName() + ".tmp");
+
+        LOG.info("Delta export of changes after {} (PK {}) up to {}", modified.getTime(), modified.getPk(), cutoff);
+        try {
+            final long exported;
+            try (ExportWriter writer = ProductExporter.createWriter(
+                    ProductExporter.openWriter(ProductExporter.openStream(temp, compress)), format.getCode())) {
+                writer.writeHeader();
+                exported = productExporter.exportModifiedSince(modified, cutoff, limit, writer,
+                        () -> clearAbortRequestedIfNeeded(cronJob));
+                if (exported == ProductExporter.ABORTED) {
+                    return ProductExporter.ABORTED;
+                }
+                writer.writeFooter();
+            }
+
+            final long tombstones;
+            try (ExportWriter writer = ProductExporter.createWriter(
+                    ProductExporter.openWriter(ProductExporter.openStream(tombstoneTemp, compress)), format.getCode(),
+                    ProductExporter.TOMBSTONE_COLUMNS)) {
+                writer.writeHeader();
+                tombstones = productExporter.exportRemovedSince(removed, cutoff, writer,
+                        () -> clearAbortRequestedIfNeeded(cronJob));
+                if (tombstones == ProductExporter.ABORTED) {
+                    return ProductExporter.ABORTED;
+                }
+                writer.writeFooter();
+            }
+
+            Files.move(tombstoneTemp, tombstoneTarget, StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("Exported {} changed and {} removed products", exported, tombstones);
+            return exported;
+        } finally {
+            deleteQuietly(tombstoneTemp);
+        }
+    }
+
+    private void saveWatermarks(final DataExportCronJobModel cronJob, final ExportWatermark modified,
+            final ExportWatermark removed) {
+        cronJob.setDeltaModifiedTime(modified.getTime());
+        cronJob.setDeltaPk(Long.valueOf(modified.getPk()));
+        cronJob.setTombstoneTime(removed.getTime());
+        cronJob.setTombstonePk(Long.valueOf(removed.getPk()));
+        modelService.save(cronJob);
+    }
+
+    private long exportPartitioned(final DataExportCronJobModel cronJob, final ExportFormat format,
+            final boolean compress, final Path target, final Path temp, final long limit, final int partitionCount)
+            throws IOException, InterruptedException {
+        final Path abortMarker = target.resolveSibling(target.getFileName() + ".abort");
+        deleteStaleAbortMarkers(cronJob, target.getParent());
+        final String language = cronJob.getSessionLanguage() == null ? null : cronJob.getSessionLanguage().getIsocode();
+
+        final List<ExportPartition> partitions = new ArrayList<>();
+        long lowerPk = 0L;
+        for (final Long upperPk : productExporter.planPartitions(partitionCount, limit)) {
+            final int index = partitions.size();
+            final String partFile = target + String.format(".part-%04d", Integer.valueOf(index));
+            partitions.add(new ExportPartition(index, lowerPk, upperPk.longValue(), format.getCode(), language,
+                    partFile, abortMarker.toString()));
+            lowerPk = upperPk.longValue();
+        }
+
+        ExecutorService executor = null;
+        List<TaskModel> tasks = Collections.emptyList();
+        boolean complete = false;
+        try {
+            if (Boolean.TRUE.equals(cronJob.getDistributePartitions())) {
+                tasks = schedulePartitionTasks(partitions);
+            } else {
+                executor = Executors.newFixedThreadPool(Math.max(1, Math.min(partitionThreads, partitions.size())),
+                        new CustomizableThreadFactory(cronJob.getCode() + "-part-"));
+                submitLocalPartitions(executor, partitions);
+            }
+
+            complete = awaitPartitions(cronJob, partitions);
+            if (!complete) {
+                return ProductExporter.ABORTED;
+            }
+            final long merged = merge(partitions, format, compress, temp);
+            LOG.info("Merged {} partitions ({} bytes of rows)", partitions.size(), merged);
+            return merged;
+        } finally {
+            if (!complete) {
+                // Written before cleaning up, so a partition finishing now removes its own output
+                writeAbortMarker(abortMarker);
+                removeUnstartedTasks(tasks);
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            for (final ExportPartition partition : partitions) {
+                deleteQuietly(Paths.get(partition.getPartFile()));
+                deleteQuietly(ProductExporter.failedMarker(partition));
+            }
+            // After an abort the marker stays: running partitions check it before and after moving their part
+        }
+    }
+
+    private static void writeAbortMarker(final Path abortMarker) {
+        try {
+            Files.write(abortMarker, new byte[0]);
+        } catch (final IOException e) {
+            // Partitions still running will then finish and leave their part files behind
+            LOG.error("Could not write abort marker {}", abortMarker, e);
+        }
+    }
+
+    private void removeUnstartedTasks(final List<TaskModel> tasks) {
+        for (final TaskModel task : tasks) {
+            try {
+                modelService.refresh(task);
+                if (task.getRunningOnClusterNode() == null || task.getRunningOnClusterNode().intValue() < 0) {
+                    modelService.remove(task);
+                }
+            } catch (final RuntimeException e) {
+                // Already run and removed by the task engine, or just picked up: the abort marker covers it
+                LOG.debug("Could not remove partition task {}", task.getPk(), e);
+            }
+        }
+    }
+
+    private void deleteStaleAbortMarkers(final DataExportCronJobModel cronJob, final Path directory)
+            throws IOException {
+        final long cutoff = System.currentTimeMillis() - partitionTimeoutSeconds * 1000L;
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(directory, cronJob.getCode() + "-*.abort")) {
+            for (final Path marker : markers) {
+                // Partitions of that run are past their timeout and presumed dead
+                if (Files.getLastModifiedTime(marker).toMillis() < cutoff) {
+                    deleteQuietly(marker);
+                }
+            }
+        }
+    }
+
+    private List<TaskModel> schedulePartitionTasks(final List<ExportPartition> partitions) {
+        final List<TaskModel> tasks = new ArrayList<>(partitions.size());
+        for (final ExportPartition partition : partitions) {
+            final TaskModel task = modelService.create(TaskModel.class);
+            task.setRunnerBean(partitionTaskRunnerBean);
+            task.setContext(partition);
+            task.setExecutionDate(new Date());
+            if (partitionNodeGroup != null) {
+                task.setNodeGroup(partitionNodeGroup);
+            }
+            taskService.scheduleTask(task);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private void submitLocalPartitions(final ExecutorService executor, final List<ExportPartition> partitions) {
+        // Threads stand in for cluster nodes: same runner, same file protocol
+        final Tenant tenant = Registry.getCurrentTenant();
+        final Map<String, Object> sessionAttributes = new HashMap<>(sessionService.getAllAttributes());
+        for (final ExportPartition partition : partitions) {
+            executor.execute(() -> {
+                Registry.setCurrentTenant(tenant);
+                try {
+                    sessionService.createNewSession();
+                    try {
+                        sessionAttributes.forEach(sessionService::setAttribute);
+                        exportPartitionTaskRunner.execute(partition);
+                    } finally {
+                        sessionService.closeCurrentSession();
+                    }
+                } catch (final RuntimeException e) {
+                    ProductExporter.markFailed(partition, e);
+                } finally {
+                    Registry.unsetCurrentTenant();
+                }
+            });
+        }
+    }
+
+    /**
+     * Wait until every part file exists. The caller writes the abort marker if this does not return true.
+     * @return false if the job was aborted meanwhile
+     * @throws IOException if a partition failed or the timeout passed
+     */
+    private boolean awaitPartitions(final DataExportCronJobModel cronJob, final List<ExportPartition> partitions)
+            throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + partitionTimeoutSeconds * 1000L;
+        while (true) {
+            if (clearAbortRequestedIfNeeded(cronJob)) {
+                return false;
+            }
+            int finished = 0;
+            for (final ExportPartition partition : partitions) {
+                final Path failed = ProductExporter.failedMarker(partition);
+                if (Files.exists(failed)) {
+                    throw new IOException("Partition " + partition.getIndex() + " failed: "
+                            + new String(Files.readAllBytes(failed), StandardCharsets.UTF_8));
+                }
+                if (Files.exists(Paths.get(partition.getPartFile()))) {
+                    finished++;
+                }
+            }
+            if (finished == partitions.size()) {
+                return true;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("Timed out waiting for partitions: " + finished + " of " + partitions.size()
+                        + " finished");
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * Concatenate part files in order between one header and one footer.
+     * @return number of bytes of row data merged
+     */
+    private static long merge(final List<ExportPartition> partitions, final ExportFormat format,
+            final boolean compress, final Path temp) throws IOException {
+        long merged = 0L;
+        try (OutputStream out = ProductExporter.openStream(temp, compress)) {
+            final Writer chars = ProductExporter.openWriter(out);
+            try (ExportWriter writer = ProductExporter.createWriter(chars, format.getCode())) {
+                writer.writeHeader();
+                // Everything written so far must reach the stream before raw part bytes follow
+                writer.flush();
+                final byte[] separator = writer.getPartSeparator().getBytes(StandardCharsets.UTF_8);
+                for (final ExportPartition partition : partitions) {
+                    final Path part = Paths.get(partition.getPartFile());
+                    final long size = Files.size(part);
+                    if (size == 0L) {
+                        continue;
+                    }
+                    if (merged > 0L) {
+                        out.write(separator);
+                    }
+                    Files.copy(part, out);
+                    merged += size;
+                }
+                writer.writeFooter();
+            }
+        }
+        return merged;
+    }
+
+    private static String fileName(final DataExportCronJobModel cronJob, final ExportFormat format,
+            final boolean compress) {
+        final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        return cronJob.getCode() + '-' + timestamp + '.' + format.getCode().toLowerCase(Locale.ROOT)
+                + (compress ? ".gz" : "");
+    }
+
+    private static String tombstoneFileName(final Path target, final ExportFormat format) {
+        // <code>-<timestamp>.csv[.gz] -> <code>-<timestamp>.tombstones.csv[.gz]
+        final String name = target.getFileName().toString();
+        final String extension = '.' + format.getCode().toLowerCase(Locale.ROOT);
+        final int at = name.lastIndexOf(extension);
+        return name.substring(0, at) + ".tombstones" + name.substring(at);
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            LOG.warn("Could not delete {}", file, e);
+        }
+    }
+
+    // Setter injection
+    public void setProductExporter(final ProductExporter productExporter) {
+        this.productExporter = productExporter;
+    }
+
+    public void setExportPartitionTaskRunner(final ExportPartitionTaskRunner exportPartitionTaskRunner) {
+        this.exportPartitionTaskRunner = exportPartitionTaskRunner;
+    }
+
+    public void setTaskService(final TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    public void setPartitionTaskRunnerBean(final String partitionTaskRunnerBean) {
+        this.partitionTaskRunnerBean = partitionTaskRunnerBean;
+    }
+
+    public void setPartitionNodeGroup(final String partitionNodeGroup) {
+        this.partitionNodeGroup = partitionNodeGroup;
+    }
+
+    public void setPartitionThreads(final int partitionThreads) {
+        this.partitionThreads = partitionThreads;
+    }
+
+    public void setPartitionTimeoutSeconds(final long partitionTimeoutSeconds) {
+        this.partitionTimeoutSeconds = partitionTimeoutSeconds;
+    }
+
+    /**
+     * @param deltaSafetyLagSeconds delta runs leave out changes younger than this, so rows from
+     *        transactions still in flight (with an earlier modifiedtime) are not skipped for good
+     */
+    public void setDeltaSafetyLagSeconds(final long deltaSafetyLagSeconds) {
+        this.deltaSafetyLagSeconds = deltaSafetyLagSeconds;
+    }
+}
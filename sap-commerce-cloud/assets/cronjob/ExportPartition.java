@@ -0,0 +1,76 @@
+package com.example.jobs.export;
+
+import java.io.Serializable;
+
+/**
+ * One slice of a partitioned export: the products with {@code lowerPk < pk <= upperPk}.
+ *
+ * Serializable because it travels as TaskModel context to whichever cluster node runs it.
+ * All paths must be on storage shared by the nodes taking part.
+ */
+public class ExportPartition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+    private final long lowerPk;
+    private final long upperPk;
+    private final String formatCode;
+    private final String languageIsocode;
+    private final String partFile;
+    private final String abortMarker;
+
+    public ExportPartition(final int index, final long lowerPk, final long upperPk, final String formatCode,
+            final String languageIsocode, final String partFile, final String abortMarker) {
+        this.index = index;
+        this.lowerPk = lowerPk;
+        this.upperPk = upperPk;
+        this.formatCode = formatCode;
+        this.languageIsocode = languageIsocode;
+        this.partFile = partFile;
+        this.abortMarker = abortMarker;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return exclusive lower PK bound
+     */
+    public long getLowerPk() {
+        return lowerPk;
+    }
+
+    /**
+     * @return inclusive upper PK bound
+     */
+    public long getUpperPk() {
+        return upperPk;
+    }
+
+    public String getFormatCode() {
+        return formatCode;
+    }
+
+    /**
+     * @return language for localized columns; null to keep the session language
+     */
+    public String getLanguageIsocode() {
+        return languageIsocode;
+    }
+
+    /**
+     * @return path of the finished part file; it only exists once the partition is complete
+     */
+    public String getPartFile() {
+        return partFile;
+    }
+
+    /**
+     * @return path of the file whose presence tells the partition to stop
+     */
+    public String getAbortMarker() {
+        return abortMarker;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.jobs.export;
+
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.task.TaskModel;
+import de.hybris.platform.task.TaskRunner;
+import de.hybris.platform.task.TaskService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs one ExportPartition. Scheduled through the TaskService, which hands tasks to
+ * any cluster node (or node group) with a free task engine slot; DataExportJobPerformable
+ * also calls {@link #execute} directly on local threads.
+ */
+public class ExportPartitionTaskRunner implements TaskRunner<TaskModel> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportPartitionTaskRunner.class);
+
+    private ProductExporter productExporter;
+    private CommonI18NService commonI18NService;
+
+    @Override
+    public void run(final TaskService taskService, final TaskModel task) {
+        execute((ExportPartition) task.getContext());
+    }
+
+    @Override
+    public void handleError(final TaskService taskService, final TaskModel task, final Throwable error) {
+        // runPartition reports its own failures; this only sees errors before it started
+        LOG.error("Export partition task {} failed", task.getPk(), error);
+        if (task.getContext() instanceof ExportPartition) {
+            ProductExporter.markFailed((ExportPartition) task.getContext(), error);
+        }
+    }
+
+    /**
+     * Export a partition in the current session, switching to the partition's language first.
+     * @param partition the partition
+     */
+    public void execute(final ExportPartition partition) {
+        if (partition.getLanguageIsocode() != null) {
+            commonI18NService.setCurrentLanguage(commonI18NService.getLanguage(partition.getLanguageIsocode()));
+        }
+        productExporter.runPartition(partition);
+    }
+
+    // Setter injection
+    public void setProductExporter(final ProductExporter productExporter) {
+        this.productExporter = productExporter;
+    }
+
+    public void setCommonI18NService(final CommonI18NService commonI18NService) {
+        this.commonI18NService = commonI18NService;
+    }
+}
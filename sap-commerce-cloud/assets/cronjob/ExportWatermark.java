@@ -0,0 +1,35 @@
+package com.example.jobs.export;
+
+import java.util.Date;
+
+/**
+ * Position in a (timestamp, PK) ordered stream: everything at or before it has been exported.
+ * The PK breaks ties between items with the same timestamp.
+ */
+public class ExportWatermark {
+
+    private Date time;
+    private long pk;
+
+    /**
+     * @param time last exported timestamp; null to start from the beginning
+     * @param pk last exported PK at that timestamp
+     */
+    public ExportWatermark(final Date time, final long pk) {
+        this.time = time == null ? new Date(0L) : time;
+        this.pk = pk;
+    }
+
+    void advance(final Date time, final long pk) {
+        this.time = time;
+        this.pk = pk;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public long getPk() {
+        return pk;
+    }
+}
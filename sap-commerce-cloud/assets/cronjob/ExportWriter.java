@@ -0,0 +1,55 @@
+package com.example.jobs.export;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Streaming writer for one export file.
+ *
+ * Call order: {@link #writeHeader()} once, {@link #writeRow} per record,
+ * {@link #writeFooter()} once, then {@link #close()}. Rows are written straight to the
+ * underlying stream; nothing is collected in memory.
+ *
+ * Partitioned exports write rows only into part files and concatenate them between one
+ * header and one footer; {@link #getPartSeparator()} is inserted between non-empty parts.
+ */
+public interface ExportWriter extends Closeable, Flushable {
+
+    /**
+     * Write whatever precedes the first row (CSV header line, JSON array start, XML root element).
+     */
+    void writeHeader() throws IOException;
+
+    /**
+     * Write one record.
+     * @param values column values, in the column order the writer was created with; may contain nulls
+     */
+    void writeRow(List<Object> values) throws IOException;
+
+    /**
+     * Write whatever follows the last row.
+     */
+    void writeFooter() throws IOException;
+
+    /**
+     * @return text to insert between the rows of two concatenated part files
+     */
+    default String getPartSeparator() {
+        return "";
+    }
+
+    /**
+     * Format a value as text. Dates are written as ISO-8601 UTC timestamps.
+     * @param value the value, not null
+     * @return text representation
+     */
+    static String format(final Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.jobs.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * JSON array of objects, one object per line, keyed by column name.
+ * Escaping is done inline so no object tree is ever built.
+ */
+public class JsonExportWriter implements ExportWriter {
+
+    private final Writer out;
+    private final List<String> columns;
+    private boolean firstRow = true;
+
+    public JsonExportWriter(final Writer out, final List<String> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        out.write('[');
+    }
+
+    @Override
+    public void writeRow(final List<Object> values) throws IOException {
+        out.write(firstRow ? "\n{" : ",\n{");
+        firstRow = false;
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeString(columns.get(i));
+            out.write(':');
+            final Object value = values.get(i);
+            if (value == null) {
+                out.write("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                out.write(value.toString());
+            } else {
+                writeString(ExportWriter.format(value));
+            }
+        }
+        out.write('}');
+    }
+
+    @Override
+    public void writeFooter() throws IOException {
+        out.write("\n]\n");
+    }
+
+    @Override
+    public String getPartSeparator() {
+        // Each part starts without a comma, like a stand-alone array body
+        return ",";
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeString(final String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
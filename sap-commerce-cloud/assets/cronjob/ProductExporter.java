@@ -0,0 +1,405 @@
+package com.example.jobs.export;
+
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams product rows into ExportWriters. Shared by DataExportJobPerformable and
+ * the partition workers, local or remote.
+ *
+ * Products are read as raw column rows (no models) in PK order, one page at a time
+ * (keyset pagination on PK, no OFFSET); memory use is one page, whatever the catalog size.
+ */
+public class ProductExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductExporter.class);
+
+    /** Returned by export methods when the abort check fired. */
+    public static final long ABORTED = -1L;
+
+    public static final List<String> COLUMNS =
+            Arrays.asList("pk", "code", "name", "catalog", "catalogVersion", "modifiedTime");
+
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // {p.name} resolves in the session language
+    private static final String EXPORT_QUERY =
+        "SELECT {p.pk}, {p.code}, {p.name}, {c.id}, {cv.version}, {p.modifiedtime} " +
+        "FROM {Product AS p " +
+        "JOIN CatalogVersion AS cv ON {p.catalogVersion} = {cv.pk} " +
+        "JOIN Catalog AS c ON {cv.catalog} = {c.pk}} " +
+        "WHERE {p.pk} > ?lastPk AND {p.pk} <= ?upperPk " +
+        "ORDER BY {p.pk} ASC";
+
+    private static final List<Class<?>> RESULT_CLASSES =
+            Arrays.asList(Long.class, String.class, String.class, String.class, String.class, Date.class);
+
+    public static final List<String> TOMBSTONE_COLUMNS =
+            Arrays.asList("pk", "code", "catalog", "catalogVersion", "removedTime");
+
+    // Keyset on (modifiedtime, pk); the cutoff keeps out rows whose transactions may not be visible yet
+    private static final String DELTA_QUERY =
+        "SELECT {p.pk}, {p.code}, {p.name}, {c.id}, {cv.version}, {p.modifiedtime} " +
+        "FROM {Product AS p " +
+        "JOIN CatalogVersion AS cv ON {p.catalogVersion} = {cv.pk} " +
+        "JOIN Catalog AS c ON {cv.catalog} = {c.pk}} " +
+        "WHERE ({p.modifiedtime} > ?lastTime OR ({p.modifiedtime} = ?lastTime AND {p.pk} > ?lastPk)) " +
+        "AND {p.modifiedtime} <= ?cutoff " +
+        "ORDER BY {p.modifiedtime} ASC, {p.pk} ASC";
+
+    private static final String TOMBSTONE_QUERY =
+        "SELECT {productPk}, {code}, {catalogId}, {catalogVersion}, {creationtime} " +
+        "FROM {ProductTombstone} " +
+        "WHERE ({creationtime} > ?lastTime OR ({creationtime} = ?lastTime AND {productPk} > ?lastPk)) " +
+        "AND {creationtime} <= ?cutoff " +
+        "ORDER BY {creationtime} ASC, {productPk} ASC";
+
+    private static final List<Class<?>> TOMBSTONE_RESULT_CLASSES =
+            Arrays.asList(Long.class, String.class, String.class, String.class, Date.class);
+
+    private FlexibleSearchService flexibleSearchService;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * Stream products with {@code lowerPk < pk <= upperPk} into the writer, page by page.
+     * @param lowerPk exclusive lower bound; 0 for the first product
+     * @param upperPk inclusive upper bound; Long.MAX_VALUE for no bound
+     * @param limit maximum number of rows
+     * @param writer destination; header and footer are the caller's business
+     * @param abortRequested checked before every page
+     * @return number of rows written, or {@link #ABORTED}
+     */
+    public long exportRange(final long lowerPk, final long upperPk, final long limit, final ExportWriter writer,
+            final BooleanSupplier abortRequested) throws IOException {
+        long exported = 0L;
+        long lastPk = lowerPk;
+        List<List<Object>> rows;
+        do {
+            if (abortRequested.getAsBoolean()) {
+                return ABORTED;
+            }
+            final int count = (int) Math.min(pageSize, limit - exported);
+            rows = fetchPage(lastPk, upperPk, count);
+            for (final List<Object> row : rows) {
+                writer.writeRow(row);
+            }
+            exported += rows.size();
+            if (!rows.isEmpty()) {
+                lastPk = ((Long) rows.get(rows.size() - 1).get(0)).longValue();
+            }
+        } while (rows.size() == pageSize && exported < limit);
+        return exported;
+    }
+
+    /**
+     * Stream products modified after the watermark and at or before the cutoff, in
+     * (modifiedtime, PK) order. The watermark is advanced past every row written, so after
+     * a successful run it is the starting point for the next one.
+     * @param watermark start position, advanced in place
+     * @param cutoff latest modifiedtime to include
+     * @param limit maximum number of rows
+     * @param writer destination; header and footer are the caller's business
+     * @param abortRequested checked before every page
+     * @return number of rows written, or {@link #ABORTED}
+     */
+    public long exportModifiedSince(final ExportWatermark watermark, final Date cutoff, final long limit,
+            final ExportWriter writer, final BooleanSupplier abortRequested) throws IOException {
+        return exportSince(DELTA_QUERY, RESULT_CLASSES, watermark, cutoff, limit, writer, abortRequested);
+    }
+
+    /**
+     * Stream tombstones of products removed after the watermark and at or before the cutoff.
+     * Same contract as {@link #exportModifiedSince}; rows match {@link #TOMBSTONE_COLUMNS}.
+     */
+    public long exportRemovedSince(final ExportWatermark watermark, final Date cutoff, final ExportWriter writer,
+            final BooleanSupplier abortRequested) throws IOException {
+        return exportSince(TOMBSTONE_QUERY, TOMBSTONE_RESULT_CLASSES, watermark, cutoff, Long.MAX_VALUE, writer,
+                abortRequested);
+    }
+
+    /**
+     * Keyset loop shared by the delta streams. Rows carry the PK first and the timestamp last.
+     */
+    private long exportSince(final String queryString, final List<Class<?>> resultClasses,
+            final ExportWatermark watermark, final Date cutoff, final long limit, final ExportWriter writer,
+            final BooleanSupplier abortRequested) throws IOException {
+        long exported = 0L;
+        List<List<Object>> rows;
+        do {
+            if (abortRequested.getAsBoolean()) {
+                return ABORTED;
+            }
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
+            query.addQueryParameter("lastTime", watermark.getTime());
+            query.addQueryParameter("lastPk", Long.valueOf(watermark.getPk()));
+            query.addQueryParameter("cutoff", cutoff);
+            query.setResultClassList(resultClasses);
+            query.setCount((int) Math.min(pageSize, limit - exported));
+            query.setNeedTotal(false);
+            query.setDisableCaching(true);
+
+            final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+            rows = result.getResult();
+            for (final List<Object> row : rows) {
+                writer.writeRow(row);
+                watermark.advance((Date) row.get(row.size() - 1), ((Long) row.get(0)).longValue());
+            }
+            exported += rows.size();
+        } while (rows.size() == pageSize && exported < limit);
+        return exported;
+    }
+
+    /**
+     * Split the first {@code limit} products into ranges of (nearly) equal row count.
+     * Boundaries are looked up by position, so PK gaps and clustering do not skew the split.
+     * All boundaries are found in one keyset pass over the PK column (no OFFSET per boundary),
+     * which stops at the last bounded partition.
+     * @param partitionCount requested number of partitions
+     * @param limit maximum number of rows over all partitions
+     * @return inclusive upper PK bound of each partition, ascending; fewer than requested
+     *         if there are fewer products than partitions, empty if there are none
+     */
+    public List<Long> planPartitions(final int partitionCount, final long limit) {
+        final long total = countProducts();
+        final long rows = Math.min(total, limit);
+        final List<Long> positions = new ArrayList<>(partitionCount);
+        long previousPosition = -1L;
+        for (int i = 1; i <= partitionCount; i++) {
+            final long position = rows * i / partitionCount - 1;
+            if (position <= previousPosition) {
+                // More partitions than rows: skip the empty ones
+                continue;
+            }
+            previousPosition = position;
+            positions.add(Long.valueOf(position));
+        }
+        if (positions.isEmpty()) {
+            return positions;
+        }
+
+        // Unbounded last partition also picks up products created while the export runs
+        final boolean lastUnbounded = rows == total;
+        final List<Long> upperBounds =
+                pksAtPositions(lastUnbounded ? positions.subList(0, positions.size() - 1) : positions);
+        if (lastUnbounded) {
+            upperBounds.add(Long.valueOf(Long.MAX_VALUE));
+        }
+        return upperBounds;
+    }
+
+    /**
+     * Export one partition to its part file: rows only, uncompressed. The file is written as
+     * {@code .tmp} and renamed when complete; on failure a {@code .failed} file carries the message.
+     * Never throws: the coordinator learns the outcome from the files.
+     *
+     * Once the coordinator's abort marker exists, the run leaves nothing behind: it does not
+     * start, stops at the next page, and deletes a part it moved into place just as the marker appeared.
+     * @param partition the partition
+     */
+    public void runPartition(final ExportPartition partition) {
+        final Path part = Paths.get(partition.getPartFile());
+        final Path temp = Paths.get(partition.getPartFile() + ".tmp");
+        final Path abortMarker = Paths.get(partition.getAbortMarker());
+        if (Files.exists(abortMarker)) {
+            LOG.debug("Partition {} skipped, export was abandoned", partition.getIndex());
+            return;
+        }
+        try {
+            final long exported;
+            try (ExportWriter writer = createWriter(openWriter(openStream(temp, false)), partition.getFormatCode())) {
+                exported = exportRange(partition.getLowerPk(), partition.getUpperPk(), Long.MAX_VALUE, writer,
+                        () -> Files.exists(abortMarker));
+            }
+            if (exported == ABORTED) {
+                Files.deleteIfExists(temp);
+                return;
+            }
+            Files.move(temp, part, StandardCopyOption.ATOMIC_MOVE);
+            if (Files.exists(abortMarker)) {
+                // The coordinator gave up while this part was finishing and may have cleaned up already
+                Files.deleteIfExists(part);
+                return;
+            }
+            LOG.debug("Partition {} exported {} rows", partition.getIndex(), exported);
+        } catch (final IOException | RuntimeException e) {
+            LOG.error("Partition {} failed", partition.getIndex(), e);
+            markFailed(partition, e);
+        }
+    }
+
+    /**
+     * Tell the coordinator a partition failed, by writing its {@code .failed} file.
+     * @param partition the partition
+     * @param error the cause, recorded in the file
+     */
+    public static void markFailed(final ExportPartition partition, final Throwable error) {
+        try {
+            Files.deleteIfExists(Paths.get(partition.getPartFile() + ".tmp"));
+            if (Files.exists(Paths.get(partition.getAbortMarker()))) {
+                // Nobody waits for this partition any more
+                return;
+            }
+            Files.write(failedMarker(partition), String.valueOf(error).getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            // Coordinator times out instead
+            LOG.error("Could not mark partition {} as failed", partition.getIndex(), e);
+        }
+    }
+
+    /**
+     * @param partition the partition
+     * @return path of the file written when the partition fails
+     */
+    public static Path failedMarker(final ExportPartition partition) {
+        return Paths.get(partition.getPartFile() + ".failed");
+    }
+
+    /**
+     * Open a file for writing through a FileChannel with a 64 KB buffer, optionally gzip-compressed.
+     */
+    public static OutputStream openStream(final Path file, final boolean compress) throws IOException {
+        final FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        final OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        return compress ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    /**
+     * Buffered UTF-8 writer over a stream opened with {@link #openStream}.
+     */
+    public static Writer openWriter(final OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * @param writer destination; closed when the ExportWriter is closed, or here if creation fails
+     * @param formatCode ExportFormat code (CSV, JSON, XML)
+     */
+    public static ExportWriter createWriter(final Writer writer, final String formatCode) throws IOException {
+        return createWriter(writer, formatCode, COLUMNS);
+    }
+
+    /**
+     * @param writer destination; closed when the ExportWriter is closed, or here if creation fails
+     * @param formatCode ExportFormat code (CSV, JSON, XML)
+     * @param columns column names, e.g. {@link #TOMBSTONE_COLUMNS}
+     */
+    public static ExportWriter createWriter(final Writer writer, final String formatCode, final List<String> columns)
+            throws IOException {
+        try {
+            switch (formatCode) {
+                case "JSON":
+                    return new JsonExportWriter(writer, columns);
+                case "XML":
+                    return new XmlExportWriter(writer, columns);
+                default:
+                    return new CsvExportWriter(writer, columns);
+            }
+        } catch (final IOException | RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    private List<List<Object>> fetchPage(final long lastPk, final long upperPk, final int count) {
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(EXPORT_QUERY);
+        query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+        query.addQueryParameter("upperPk", Long.valueOf(upperPk));
+        query.setResultClassList(RESULT_CLASSES);
+        query.setCount(count);
+        query.setNeedTotal(false);
+        // Each page is read once; caching it would only evict useful entries
+        query.setDisableCaching(true);
+
+        final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+        return result.getResult();
+    }
+
+    private long countProducts() {
+        final FlexibleSearchQuery query = new FlexibleSearchQuery("SELECT COUNT({pk}) FROM {Product}");
+        query.setResultClassList(Collections.singletonList(Long.class));
+        final SearchResult<Long> result = flexibleSearchService.search(query);
+        return result.getResult().get(0).longValue();
+    }
+
+    /**
+     * Walk the PKs in ascending order, page by page, and pick the PK at each position.
+     * @param positions zero-based row positions, ascending
+     * @return the PK at each position
+     */
+    private List<Long> pksAtPositions(final List<Long> positions) {
+        final List<Long> pks = new ArrayList<>(positions.size() + 1);
+        long lastPk = 0L;
+        long position = -1L;
+        while (pks.size() < positions.size()) {
+            final List<Long> page = fetchPkPage(lastPk);
+            for (final Long pk : page) {
+                position++;
+                if (pks.size() < positions.size() && position == positions.get(pks.size()).longValue()) {
+                    pks.add(pk);
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            lastPk = page.get(page.size() - 1).longValue();
+        }
+
+        while (pks.size() < positions.size()) {
+            // Products removed since counting: let the remaining partitions run to the end
+            pks.add(Long.valueOf(Long.MAX_VALUE));
+        }
+        return pks;
+    }
+
+    private List<Long> fetchPkPage(final long lastPk) {
+        final FlexibleSearchQuery query =
+                new FlexibleSearchQuery("SELECT {pk} FROM {Product} WHERE {pk} > ?lastPk ORDER BY {pk} ASC");
+        query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+        query.setResultClassList(Collections.singletonList(Long.class));
+        query.setCount(pageSize);
+        query.setNeedTotal(false);
+        query.setDisableCaching(true);
+        final SearchResult<Long> result = flexibleSearchService.search(query);
+        return result.getResult();
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setPageSize(final int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+}
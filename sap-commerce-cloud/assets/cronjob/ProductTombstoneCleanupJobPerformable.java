@@ -0,0 +1,75 @@
+package com.example.jobs;
+
+import com.example.model.ProductTombstoneModel;
+
+import de.hybris.platform.cronjob.model.CronJobModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.SearchResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retention for ProductTombstone rows.
+ *
+ * ProductTombstoneRemoveInterceptor records every product removal, whether or not a delta
+ * export consumes it. This job deletes tombstones that every delta DataExportCronJob has
+ * already exported, i.e. those created before the oldest {@code tombstoneTime} of all of them:
+ * - No delta export job: every tombstone is deleted
+ * - A delta export job that has not exported tombstones yet ({@code tombstoneTime} empty):
+ *   nothing is deleted, its first run still needs them
+ */
+public class ProductTombstoneCleanupJobPerformable
+        extends AbstractBatchJobPerformable<CronJobModel, ProductTombstoneModel> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductTombstoneCleanupJobPerformable.class);
+
+    private static final Date KEEP_ALL = new Date(0L);
+
+    @Override
+    protected String getPkQuery(final CronJobModel cronJob) {
+        return "SELECT {pk} FROM {ProductTombstone} WHERE {creationtime} < ?cutoff AND {pk} > ?lastPk ORDER BY {pk} ASC";
+    }
+
+    @Override
+    protected Map<String, Object> getPkQueryParameters(final CronJobModel cronJob) {
+        return Collections.singletonMap("cutoff", findCutoff());
+    }
+
+    @Override
+    protected void processItem(final ProductTombstoneModel tombstone, final CronJobModel cronJob) {
+        modelService.remove(tombstone);
+    }
+
+    /**
+     * @return creation time before which every delta export has consumed the tombstones
+     */
+    private Date findCutoff() {
+        final FlexibleSearchQuery query =
+                new FlexibleSearchQuery("SELECT {tombstoneTime} FROM {DataExportCronJob} WHERE {deltaMode} = ?deltaMode");
+        query.addQueryParameter("deltaMode", Boolean.TRUE);
+        query.setResultClassList(Collections.singletonList(Date.class));
+        final SearchResult<Date> result = flexibleSearchService.search(query);
+        final List<Date> marks = result.getResult();
+
+        if (marks.isEmpty()) {
+            return new Date();
+        }
+        Date oldest = null;
+        for (final Date mark : marks) {
+            if (mark == null) {
+                LOG.info("A delta export has not exported tombstones yet, keeping all of them");
+                return KEEP_ALL;
+            }
+            if (oldest == null || mark.before(oldest)) {
+                oldest = mark;
+            }
+        }
+        return oldest;
+    }
+}
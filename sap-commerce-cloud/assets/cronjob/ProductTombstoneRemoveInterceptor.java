@@ -0,0 +1,34 @@
+package com.example.jobs.export;
+
+import com.example.model.ProductTombstoneModel;
+
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.interceptor.InterceptorContext;
+import de.hybris.platform.servicelayer.interceptor.PersistenceOperation;
+import de.hybris.platform.servicelayer.interceptor.RemoveInterceptor;
+
+/**
+ * Records a ProductTombstone for every removed product, in the same transaction as the removal,
+ * so delta exports can tell downstream systems what disappeared.
+ *
+ * Only removals through the ServiceLayer are seen; direct SQL or Jalo removals leave no tombstone.
+ *
+ * Tombstones are written whether or not a delta export exists; ProductTombstoneCleanupJobPerformable
+ * deletes those every delta export has consumed.
+ */
+public class ProductTombstoneRemoveInterceptor implements RemoveInterceptor<ProductModel> {
+
+    @Override
+    public void onRemove(final ProductModel product, final InterceptorContext ctx) {
+        final ProductTombstoneModel tombstone = ctx.getModelService().create(ProductTombstoneModel.class);
+        tombstone.setProductPk(Long.valueOf(product.getPk().getLongValue()));
+        tombstone.setCode(product.getCode());
+        final CatalogVersionModel catalogVersion = product.getCatalogVersion();
+        if (catalogVersion != null) {
+            tombstone.setCatalogId(catalogVersion.getCatalog().getId());
+            tombstone.setCatalogVersion(catalogVersion.getVersion());
+        }
+        ctx.registerElementFor(tombstone, PersistenceOperation.SAVE);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.jobs.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * XML document with one {@code <record>} element per row and one child element per column;
+ * null values are omitted. Uses StAX, so the document is never held in memory.
+ */
+public class XmlExportWriter implements ExportWriter {
+
+    private static final String ROOT_ELEMENT = "export";
+    private static final String RECORD_ELEMENT = "record";
+
+    private final Writer out;
+    private final List<String> columns;
+    private final XMLStreamWriter xml;
+
+    public XmlExportWriter(final Writer out, final List<String> columns) throws IOException {
+        this.out = out;
+        this.columns = columns;
+        try {
+            this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not create XML writer", e);
+        }
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        try {
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement(ROOT_ELEMENT);
+            // Closes the start tag now, so the header is complete before part files are appended
+            xml.writeCharacters("");
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeRow(final List<Object> values) throws IOException {
+        try {
+            xml.writeCharacters("\n");
+            xml.writeStartElement(RECORD_ELEMENT);
+            for (int i = 0; i < columns.size(); i++) {
+                final Object value = values.get(i);
+                if (value != null) {
+                    xml.writeStartElement(columns.get(i));
+                    xml.writeCharacters(ExportWriter.format(value));
+                    xml.writeEndElement();
+                }
+            }
+            xml.writeEndElement();
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeFooter() throws IOException {
+        try {
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            out.write('\n');
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        try {
+            xml.flush();
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.flush();
+            xml.close();
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            // XMLStreamWriter.close does not close the underlying writer
+            out.close();
+        }
+    }
+}
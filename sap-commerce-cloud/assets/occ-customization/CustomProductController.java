@@ -5,10 +5,13 @@
  */
 package com.example.controllers;
 
+import com.example.core.search.SearchPage;
 import com.example.dto.CustomProductWsDTO;
 import com.example.dto.CustomProductListWsDTO;
 import com.example.facades.CustomProductFacade;
 import com.example.facades.data.CustomProductData;
+import com.example.facades.product.ProductOption;
+import com.example.mapping.ProductOptionsResolver;
 
 import de.hybris.platform.commercewebservicescommons.dto.product.ProductWsDTO;
 import de.hybris.platform.webservicescommons.mapping.DataMapper;
@@ -28,7 +31,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
-import java.util.List;
+import java.util.Set;
 
 /**
  * REST controller for custom product operations.
@@ -46,15 +49,27 @@ public class CustomProductController {
     @Resource
     private DataMapper dataMapper;
 
+    @Resource
+    private ProductOptionsResolver productOptionsResolver;
+
     /**
      * GET /customproducts
      * Retrieve list of custom products with optional filtering.
+     *
+     * Two paging modes:
+     * - Offset (default): currentPage + pageSize, returns totalCount from the same search
+     *   (needTotal=false skips counting for infinite-scroll clients)
+     * - Cursor: pass cursor=* for the first page, then the returned nextCursor.
+     *   Deep pages stay cheap because the query seeks instead of skipping rows.
+     *
+     * The fields level decides which populators run: BASIC skips price and stock lookups.
      */
     @RequestMapping(method = RequestMethod.GET)
     @ResponseBody
     @ApiOperation(
         value = "Get custom products",
-        notes = "Returns a list of custom products with pagination support"
+        notes = "Returns a list of custom products with pagination support. "
+            + "Pass cursor=* to use cursor-based paging for deep result sets."
     )
     @ApiBaseSiteIdParam
     public CustomProductListWsDTO getCustomProducts(
@@ -70,14 +85,36 @@ public class CustomProductController {
             @ApiParam(value = "Page size", defaultValue = "20")
             @RequestParam(defaultValue = "20") int pageSize,
 
+            @ApiParam(value = "Opaque paging cursor; '*' for the first page. Overrides currentPage when set")
+            @RequestParam(required = false) String cursor,
+
+            @ApiParam(value = "Whether to compute totalCount (offset paging only)", defaultValue = "true")
+            @RequestParam(defaultValue = "true") boolean needTotal,
+
             @ApiParam(value = "Response field level", defaultValue = "DEFAULT")
             @RequestParam(defaultValue = "DEFAULT") String fields) {
 
-        List<CustomProductData> products = customProductFacade.searchProducts(query, currentPage, pageSize);
-
         CustomProductListWsDTO result = new CustomProductListWsDTO();
-        result.setProducts(dataMapper.mapAsList(products, CustomProductWsDTO.class, fields));
-        result.setTotalCount(customProductFacade.getTotalCount(query));
+
+        // Populate only what the requested field level will serialize, in both paging modes
+        Set<ProductOption> options = productOptionsResolver.resolve(CustomProductListWsDTO.class, fields, "products");
+
+        if (cursor != null) {
+            // Cursor mode: no totalCount, client follows nextCursor until it is absent
+            SearchPage<CustomProductData> page = customProductFacade.searchProducts(query, cursor, pageSize, options);
+            result.setProducts(dataMapper.mapAsList(page.getResults(), CustomProductWsDTO.class, fields));
+            result.setNextCursor(page.getNextCursor());
+            return result;
+        }
+
+        // One search returns both the page and its total count
+        SearchPage<CustomProductData> page =
+                customProductFacade.searchProducts(query, currentPage, pageSize, needTotal, options);
+
+        result.setProducts(dataMapper.mapAsList(page.getResults(), CustomProductWsDTO.class, fields));
+        if (needTotal) {
+            result.setTotalCount(page.getTotalCount());
+        }
         return result;
     }
 
@@ -105,7 +142,8 @@ public class CustomProductController {
             @ApiParam(value = "Response field level", defaultValue = "DEFAULT")
             @RequestParam(defaultValue = "DEFAULT") String fields) {
 
-        CustomProductData productData = customProductFacade.getProductForCode(productCode);
+        Set<ProductOption> options = productOptionsResolver.resolve(CustomProductWsDTO.class, fields, "");
+        CustomProductData productData = customProductFacade.getProductForCodeAndOptions(productCode, options);
         return dataMapper.map(productData, CustomProductWsDTO.class, fields);
     }
 
@@ -191,4 +229,8 @@ public class CustomProductController {
     public void setDataMapper(DataMapper dataMapper) {
         this.dataMapper = dataMapper;
     }
+
+    public void setProductOptionsResolver(ProductOptionsResolver productOptionsResolver) {
+        this.productOptionsResolver = productOptionsResolver;
+    }
 }
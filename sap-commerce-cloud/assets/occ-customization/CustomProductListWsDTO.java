@@ -0,0 +1,60 @@
+/*
+ * CustomProductListWsDTO.java
+ * Web Service DTO wrapping a page of custom products.
+ * Returned by the GET /customproducts list endpoint.
+ */
+package com.example.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * WsDTO for a page of custom products.
+ *
+ * Paging fields:
+ * - totalCount: set in offset mode (currentPage/pageSize) unless needTotal=false
+ * - nextCursor: set in cursor mode; absent on the last page
+ */
+@ApiModel(value = "CustomProductList", description = "Page of custom products")
+public class CustomProductListWsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "Products on this page")
+    private List<CustomProductWsDTO> products;
+
+    @ApiModelProperty(value = "Total number of matching products (offset paging only)")
+    private Integer totalCount;
+
+    @ApiModelProperty(value = "Opaque cursor for the next page (cursor paging only)")
+    private String nextCursor;
+
+    // Getters and Setters
+
+    public List<CustomProductWsDTO> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<CustomProductWsDTO> products) {
+        this.products = products;
+    }
+
+    public Integer getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Integer totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * ProductOptionsResolver.java
+ * Translates the OCC "fields" parameter into the ProductOptions to populate.
+ * The field-to-option mapping is declared in occ-extension-spring.xml.
+ */
+package com.example.mapping;
+
+import com.example.facades.product.ProductOption;
+
+import de.hybris.platform.webservicescommons.mapping.FieldSetBuilder;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves which populators a request actually needs.
+ *
+ * The fields parameter is expanded with the DTO's fieldSetLevelMapping (BASIC, DEFAULT, FULL
+ * or an explicit list), then each top-level field name is looked up in {@code fieldOptions}.
+ * Fields without an entry are covered by the basic converter.
+ *
+ * Example: fields=BASIC expands to "code,name" and resolves to {BASIC}, so no price or
+ * stock lookups run. fields=DEFAULT includes "price" and "stockStatus" and resolves to
+ * {BASIC, PRICE, STOCK}.
+ */
+public class ProductOptionsResolver {
+
+    private FieldSetBuilder fieldSetBuilder;
+    private Map<String, ProductOption> fieldOptions = Collections.emptyMap();
+
+    /**
+     * @param dtoClass the WsDTO the fields parameter applies to
+     * @param fields the OCC fields parameter
+     * @param productPath path of the product DTO inside dtoClass (e.g. "products"), or empty for the DTO itself
+     * @return options to populate; always contains BASIC
+     */
+    public Set<ProductOption> resolve(final Class<?> dtoClass, final String fields, final String productPath) {
+        final Set<ProductOption> options = EnumSet.of(ProductOption.BASIC);
+        final String prefix = productPath.isEmpty() ? "" : productPath + ".";
+
+        for (final String field : fieldSetBuilder.createFieldSet(dtoClass, "", fields)) {
+            if (!field.startsWith(prefix)) {
+                continue;
+            }
+            // "price.value" -> "price": options are keyed by top-level product field
+            final String relative = field.substring(prefix.length());
+            final int dot = relative.indexOf('.');
+            final ProductOption option = fieldOptions.get(dot < 0 ? relative : relative.substring(0, dot));
+            if (option != null) {
+                options.add(option);
+            }
+        }
+        return options;
+    }
+
+    public void setFieldSetBuilder(final FieldSetBuilder fieldSetBuilder) {
+        this.fieldSetBuilder = fieldSetBuilder;
+    }
+
+    public void setFieldOptions(final Map<String, ProductOption> fieldOptions) {
+        this.fieldOptions = fieldOptions;
+    }
+}
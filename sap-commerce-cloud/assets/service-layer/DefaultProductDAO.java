@@ -6,14 +6,29 @@
 package com.example.core.daos.impl;
 
 import com.example.core.daos.ProductDAO;
+import com.example.core.daos.cache.PkQueryResultCache;
+import com.example.core.search.ProductSearchCursor;
+import com.example.core.search.SearchPage;
 
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.search.SearchResult;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Default implementation of ProductDAO using FlexibleSearch.
@@ -25,14 +40,28 @@ import java.util.List;
  *
  * FlexibleSearch patterns demonstrated:
  * - Basic SELECT with WHERE clause
+ * - Chunked IN queries for batch lookups (avoids N+1 queries)
  * - Parameterized queries (prevents SQL injection)
  * - JOIN queries for related entities
  * - Pagination with count, start, and limit
+ * - Keyset (seek) pagination on a unique sort key
+ * - Batched iteration with detach for unbounded result sets
  * - LIKE queries for text search
+ * - Optional PK result caching for catalog-structure queries (PkQueryResultCache)
  */
 public class DefaultProductDAO implements ProductDAO {
 
+    /**
+     * Upper bound for the number of values bound to a single IN clause.
+     * Oracle rejects more than 1000 expressions in a list; other databases degrade well before their limits.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
     private FlexibleSearchService flexibleSearchService;
+    private ModelService modelService;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private PkQueryResultCache pkQueryResultCache;
+    private Set<String> cachedQueries = Collections.emptySet();
 
     @Override
     public ProductModel findByCode(final String code) {
@@ -47,6 +76,44 @@ public class DefaultProductDAO implements ProductDAO {
         return result.getResult().isEmpty() ? null : result.getResult().get(0);
     }
 
+    @Override
+    public Map<String, ProductModel> findByCodes(final Collection<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // Collection parameter: one round trip per chunk instead of one per code
+        final String queryString = "SELECT {pk} FROM {Product} WHERE {code} IN (?codes)";
+
+        final List<String> distinctCodes = new ArrayList<>(new LinkedHashSet<>(codes));
+        final Map<String, ProductModel> productsByCode = new HashMap<>(distinctCodes.size());
+
+        for (int from = 0; from < distinctCodes.size(); from += batchSize) {
+            final List<String> chunk = distinctCodes.subList(from, Math.min(from + batchSize, distinctCodes.size()));
+
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
+            query.addQueryParameter("codes", chunk);
+            query.setResultClassList(Collections.singletonList(ProductModel.class));
+            query.setNeedTotal(false);
+
+            final SearchResult<ProductModel> result = flexibleSearchService.search(query);
+            for (final ProductModel product : result.getResult()) {
+                // Same code in several catalog versions: keep the first hit, as findByCode does
+                productsByCode.putIfAbsent(product.getCode(), product);
+            }
+        }
+
+        // Re-order to match the caller's input; the database returns IN results in arbitrary order
+        final Map<String, ProductModel> ordered = new LinkedHashMap<>(productsByCode.size());
+        for (final String code : distinctCodes) {
+            final ProductModel product = productsByCode.get(code);
+            if (product != null) {
+                ordered.put(code, product);
+            }
+        }
+        return ordered;
+    }
+
     @Override
     public ProductModel findByCodeAndCatalogVersion(final String code, final String catalogId,
             final String catalogVersionName) {
@@ -64,12 +131,19 @@ public class DefaultProductDAO implements ProductDAO {
         query.addQueryParameter("catalogId", catalogId);
         query.addQueryParameter("versionName", catalogVersionName);
 
-        final SearchResult<ProductModel> result = flexibleSearchService.search(query);
-        return result.getResult().isEmpty() ? null : result.getResult().get(0);
+        final List<ProductModel> result = search("findByCodeAndCatalogVersion", query,
+                "Product", "CatalogVersion", "Catalog");
+        return result.isEmpty() ? null : result.get(0);
     }
 
     @Override
     public List<ProductModel> searchByText(final String searchText, final int limit, final int offset) {
+        return searchByText(searchText, limit, offset, false).getResults();
+    }
+
+    @Override
+    public SearchPage<ProductModel> searchByText(final String searchText, final int limit, final int offset,
+            final boolean needTotal) {
         // LIKE query with case-insensitive search
         final String queryString =
             "SELECT {pk} FROM {Product} " +
@@ -83,6 +157,38 @@ public class DefaultProductDAO implements ProductDAO {
         query.setStart(offset);
         query.setCount(limit);
 
+        // Total comes back with the page: no second search running the same LIKE predicate
+        query.setNeedTotal(needTotal);
+
+        final SearchResult<ProductModel> result = flexibleSearchService.search(query);
+        return new SearchPage<>(result.getResult(), null,
+                needTotal ? result.getTotalCount() : SearchPage.UNKNOWN_TOTAL);
+    }
+
+    @Override
+    public List<ProductModel> searchByText(final String searchText, final int limit, final ProductSearchCursor after) {
+        // Keyset pagination: seek past (name, pk) of the previous page instead of skipping rows.
+        // {pk} is the tiebreaker that makes the sort key unique when names repeat.
+        // The LIKE never matches a NULL name, so every row here has a name to seek on.
+        final StringBuilder queryString = new StringBuilder(
+            "SELECT {pk} FROM {Product} " +
+            "WHERE LOWER({name}) LIKE LOWER(?searchText)");
+        if (after != null) {
+            queryString.append(" AND ({name} > ?lastName OR ({name} = ?lastName AND {pk} > ?lastPk))");
+        }
+        queryString.append(" ORDER BY {name} ASC, {pk} ASC");
+
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString.toString());
+        query.addQueryParameter("searchText", "%" + searchText + "%");
+        if (after != null) {
+            query.addQueryParameter("lastName", after.getLastName());
+            query.addQueryParameter("lastPk", after.getLastPk());
+        }
+
+        // No setStart: the WHERE clause positions the page. Total count is meaningless here.
+        query.setCount(limit);
+        query.setNeedTotal(false);
+
         final SearchResult<ProductModel> result = flexibleSearchService.search(query);
         return result.getResult();
     }
@@ -99,8 +205,21 @@ public class DefaultProductDAO implements ProductDAO {
         final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
         query.addQueryParameter("categoryCode", categoryCode);
 
-        final SearchResult<ProductModel> result = flexibleSearchService.search(query);
-        return result.getResult();
+        return search("findByCategory", query, "Product", "CategoryProductRelation", "Category");
+    }
+
+    @Override
+    public void forEachByCategory(final String categoryCode, final int batchSize,
+            final Consumer<List<ProductModel>> batchConsumer) {
+        // Same join as findByCategory, paged by PK so each batch is one bounded query
+        final String queryString =
+            "SELECT {p.pk} FROM {Product AS p " +
+            "JOIN CategoryProductRelation AS rel ON {p.pk} = {rel.target} " +
+            "JOIN Category AS c ON {rel.source} = {c.pk}} " +
+            "WHERE {c.code} = ?categoryCode AND {p.pk} > ?lastPk " +
+            "ORDER BY {p.pk} ASC";
+
+        forEachBatch(queryString, Collections.singletonMap("categoryCode", categoryCode), batchSize, batchConsumer);
     }
 
     @Override
@@ -118,6 +237,85 @@ public class DefaultProductDAO implements ProductDAO {
         return result.getResult();
     }
 
+    @Override
+    public void forEachLowStockProduct(final int threshold, final int batchSize,
+            final Consumer<List<ProductModel>> batchConsumer) {
+        // DISTINCT: a product with several low warehouses must not repeat across batches
+        final String queryString =
+            "SELECT DISTINCT {p.pk} FROM {Product AS p " +
+            "JOIN StockLevel AS sl ON {p.pk} = {sl.product}} " +
+            "WHERE {sl.available} < ?threshold AND {sl.available} > 0 AND {p.pk} > ?lastPk " +
+            "ORDER BY {p.pk} ASC";
+
+        forEachBatch(queryString, Collections.singletonMap("threshold", Integer.valueOf(threshold)), batchSize,
+                batchConsumer);
+    }
+
+    /**
+     * Run a product query, through the PK query result cache if the query is opted in.
+     * @param queryName name to opt the query in with, see setCachedQueries
+     * @param dependentTypes types whose changes invalidate the cached result
+     */
+    private List<ProductModel> search(final String queryName, final FlexibleSearchQuery query,
+            final String... dependentTypes) {
+        if (pkQueryResultCache == null || !cachedQueries.contains(queryName)) {
+            final SearchResult<ProductModel> result = flexibleSearchService.search(query);
+            return result.getResult();
+        }
+
+        // Cache PKs only; the models come from the ModelService cache
+        final List<PK> pks = pkQueryResultCache.get(query, Arrays.asList(dependentTypes), () -> {
+            query.setResultClassList(Collections.singletonList(PK.class));
+            final SearchResult<PK> result = flexibleSearchService.search(query);
+            return result.getResult();
+        });
+
+        final List<ProductModel> products = new ArrayList<>(pks.size());
+        for (final PK pk : pks) {
+            try {
+                products.add(modelService.get(pk));
+            } catch (final ModelLoadingException e) {
+                // Removed after the result was cached; its invalidation is on the way
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Keyset loop shared by the forEach* methods. The query must filter on
+     * {@code {p.pk} > ?lastPk} and order by PK ascending.
+     */
+    private void forEachBatch(final String queryString, final Map<String, Object> parameters, final int batchSize,
+            final Consumer<List<ProductModel>> batchConsumer) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        Long lastPk = Long.valueOf(0L);
+        List<ProductModel> batch;
+        do {
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
+            query.addQueryParameters(parameters);
+            query.addQueryParameter("lastPk", lastPk);
+            query.setCount(batchSize);
+            query.setNeedTotal(false);
+
+            final SearchResult<ProductModel> result = flexibleSearchService.search(query);
+            batch = result.getResult();
+            if (batch.isEmpty()) {
+                return;
+            }
+            lastPk = Long.valueOf(batch.get(batch.size() - 1).getPk().getLongValue());
+
+            try {
+                batchConsumer.accept(batch);
+            } finally {
+                // Drop the batch from the model context so it can be garbage collected
+                batch.forEach(modelService::detach);
+            }
+        } while (batch.size() == batchSize);
+    }
+
     @Override
     public int countAllProducts() {
         // COUNT query
@@ -134,4 +332,27 @@ public class DefaultProductDAO implements ProductDAO {
     public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
         this.flexibleSearchService = flexibleSearchService;
     }
+
+    public void setModelService(final ModelService modelService) {
+        this.modelService = modelService;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void setPkQueryResultCache(final PkQueryResultCache pkQueryResultCache) {
+        this.pkQueryResultCache = pkQueryResultCache;
+    }
+
+    /**
+     * @param cachedQueries names of the queries served from the PK query result cache,
+     *     e.g. findByCategory, findByCodeAndCatalogVersion
+     */
+    public void setCachedQueries(final Set<String> cachedQueries) {
+        this.cachedQueries = cachedQueries;
+    }
 }
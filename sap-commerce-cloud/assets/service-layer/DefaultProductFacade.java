@@ -5,17 +5,28 @@
  */
 package com.example.facades.impl;
 
+import com.example.core.search.SearchPage;
 import com.example.facades.ProductFacade;
+import com.example.facades.cache.ProductDataCache;
+import com.example.facades.converters.ParallelBulkConverter;
 import com.example.facades.data.ProductData;
+import com.example.facades.product.ProductOption;
 import com.example.core.services.ProductService;
 
+import de.hybris.platform.commercefacades.converter.ConfigurablePopulator;
 import de.hybris.platform.converters.Converters;
 import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.servicelayer.dto.converter.Converter;
 import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
 
 import org.springframework.util.Assert;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Default implementation of ProductFacade.
@@ -24,25 +35,57 @@ import java.util.List;
  * 1. Delegates business logic to services
  * 2. Converts Models to DTOs using converters
  * 3. Handles null checks and exception transformation
+ *
+ * The *AndOptions / options variants convert with the basic converter and then run
+ * only the populators selected by ProductOption, skipping price and stock lookups
+ * the caller does not need.
+ *
+ * Bulk conversion runs in parallel when a ParallelBulkConverter is configured,
+ * serially on the request thread otherwise.
+ *
+ * getProductForCode is served from a ProductDataCache when one is configured.
  */
 public class DefaultProductFacade implements ProductFacade {
 
     private ProductService productService;
     private Converter<ProductModel, ProductData> productConverter;
+    private Converter<ProductModel, ProductData> basicProductConverter;
+    private ConfigurablePopulator<ProductModel, ProductData, ProductOption> productConfiguredPopulator;
+    private ParallelBulkConverter parallelBulkConverter;
+    private ProductDataCache productDataCache;
 
     @Override
     public ProductData getProductForCode(final String code) {
         Assert.notNull(code, "Product code cannot be null");
 
-        // Delegate to service layer
+        // Convert Model to DTO - never expose Models to presentation layer
+        if (productDataCache == null) {
+            return productConverter.convert(getProductModel(code));
+        }
+        // Keyed by code: a hit skips the product query as well as the conversion
+        return productDataCache.get(code, () -> getProductModel(code), productConverter::convert);
+    }
+
+    @Override
+    public ProductData getProductForCodeAndOptions(final String code, final Collection<ProductOption> options) {
+        Assert.notNull(code, "Product code cannot be null");
+
         final ProductModel productModel = productService.getProductForCode(code);
 
         if (productModel == null) {
             throw new UnknownIdentifierException("Product not found for code: " + code);
         }
 
-        // Convert Model to DTO - never expose Models to presentation layer
-        return productConverter.convert(productModel);
+        return convert(productModel, options);
+    }
+
+    @Override
+    public List<ProductData> getProductsForCodes(final Collection<String> codes) {
+        Assert.notNull(codes, "Product codes cannot be null");
+
+        // One batched lookup instead of a query per code
+        final Collection<ProductModel> products = productService.getProductsForCodes(codes).values();
+        return convertAll(products);
     }
 
     @Override
@@ -53,7 +96,49 @@ public class DefaultProductFacade implements ProductFacade {
         final List<ProductModel> products = productService.searchProducts(query, pageSize, currentPage);
 
         // Batch convert all models to DTOs
-        return Converters.convertAll(products, productConverter);
+        return convertAll(products);
+    }
+
+    @Override
+    public SearchPage<ProductData> searchProducts(final String query, final int pageSize, final int currentPage,
+            final boolean needTotal) {
+        Assert.notNull(query, "Search query cannot be null");
+        Assert.isTrue(pageSize > 0, "Page size must be positive");
+
+        final SearchPage<ProductModel> page = productService.searchProducts(query, pageSize, currentPage, needTotal);
+        return new SearchPage<>(convertAll(page.getResults()), null,
+                page.getTotalCount());
+    }
+
+    @Override
+    public SearchPage<ProductData> searchProducts(final String query, final int pageSize, final int currentPage,
+            final boolean needTotal, final Collection<ProductOption> options) {
+        Assert.notNull(query, "Search query cannot be null");
+        Assert.isTrue(pageSize > 0, "Page size must be positive");
+
+        final SearchPage<ProductModel> page = productService.searchProducts(query, pageSize, currentPage, needTotal);
+        final List<ProductData> results = convertAll(page.getResults(), productModel -> convert(productModel, options));
+        return new SearchPage<>(results, null, page.getTotalCount());
+    }
+
+    @Override
+    public SearchPage<ProductData> searchProducts(final String query, final int pageSize, final String cursor) {
+        Assert.notNull(query, "Search query cannot be null");
+        Assert.isTrue(pageSize > 0, "Page size must be positive");
+
+        final SearchPage<ProductModel> page = productService.searchProducts(query, pageSize, cursor);
+        return new SearchPage<>(convertAll(page.getResults()), page.getNextCursor());
+    }
+
+    @Override
+    public SearchPage<ProductData> searchProducts(final String query, final int pageSize, final String cursor,
+            final Collection<ProductOption> options) {
+        Assert.notNull(query, "Search query cannot be null");
+        Assert.isTrue(pageSize > 0, "Page size must be positive");
+
+        final SearchPage<ProductModel> page = productService.searchProducts(query, pageSize, cursor);
+        final List<ProductData> results = convertAll(page.getResults(), productModel -> convert(productModel, options));
+        return new SearchPage<>(results, page.getNextCursor());
     }
 
     @Override
@@ -61,7 +146,18 @@ public class DefaultProductFacade implements ProductFacade {
         Assert.notNull(categoryCode, "Category code cannot be null");
 
         final List<ProductModel> products = productService.getProductsForCategory(categoryCode);
-        return Converters.convertAll(products, productConverter);
+        return convertAll(products);
+    }
+
+    @Override
+    public void forEachProductInCategory(final String categoryCode, final int batchSize,
+            final Consumer<List<ProductData>> batchConsumer) {
+        Assert.notNull(categoryCode, "Category code cannot be null");
+        Assert.isTrue(batchSize > 0, "Batch size must be positive");
+
+        // Convert inside the callback: models are detached once it returns
+        productService.forEachProductInCategory(categoryCode, batchSize,
+                products -> batchConsumer.accept(convertAll(products)));
     }
 
     @Override
@@ -81,6 +177,46 @@ public class DefaultProductFacade implements ProductFacade {
         return productService.isProductInStock(productCode);
     }
 
+    @Override
+    public Map<String, Boolean> areProductsAvailable(final Collection<String> productCodes) {
+        Assert.notNull(productCodes, "Product codes cannot be null");
+        return productService.areProductsInStock(productCodes);
+    }
+
+    private ProductModel getProductModel(final String code) {
+        // Delegate to service layer
+        final ProductModel productModel = productService.getProductForCode(code);
+
+        if (productModel == null) {
+            throw new UnknownIdentifierException("Product not found for code: " + code);
+        }
+        return productModel;
+    }
+
+    private List<ProductData> convertAll(final Collection<ProductModel> products) {
+        if (parallelBulkConverter == null) {
+            return Converters.convertAll(products, productConverter);
+        }
+        return parallelBulkConverter.convertAll(new ArrayList<>(products), productConverter::convert);
+    }
+
+    private List<ProductData> convertAll(final List<ProductModel> products,
+            final Function<ProductModel, ProductData> conversion) {
+        if (parallelBulkConverter == null) {
+            return products.stream().map(conversion).collect(Collectors.toList());
+        }
+        return parallelBulkConverter.convertAll(products, conversion);
+    }
+
+    private ProductData convert(final ProductModel productModel, final Collection<ProductOption> options) {
+        // Basic fields always; everything else only if requested
+        final ProductData productData = basicProductConverter.convert(productModel);
+        if (options != null && !options.isEmpty()) {
+            productConfiguredPopulator.populate(productModel, productData, options);
+        }
+        return productData;
+    }
+
     // Setter injection for Spring configuration
     public void setProductService(final ProductService productService) {
         this.productService = productService;
@@ -89,4 +225,21 @@ public class DefaultProductFacade implements ProductFacade {
     public void setProductConverter(final Converter<ProductModel, ProductData> productConverter) {
         this.productConverter = productConverter;
     }
+
+    public void setBasicProductConverter(final Converter<ProductModel, ProductData> basicProductConverter) {
+        this.basicProductConverter = basicProductConverter;
+    }
+
+    public void setProductDataCache(final ProductDataCache productDataCache) {
+        this.productDataCache = productDataCache;
+    }
+
+    public void setParallelBulkConverter(final ParallelBulkConverter parallelBulkConverter) {
+        this.parallelBulkConverter = parallelBulkConverter;
+    }
+
+    public void setProductConfiguredPopulator(
+            final ConfigurablePopulator<ProductModel, ProductData, ProductOption> productConfiguredPopulator) {
+        this.productConfiguredPopulator = productConfiguredPopulator;
+    }
 }
@@ -6,7 +6,13 @@
 package com.example.core.services.impl;
 
 import com.example.core.daos.ProductDAO;
+import com.example.core.daos.StockLevelDAO;
+import com.example.core.search.ProductSearchCursor;
+import com.example.core.search.ProductTextSearchStrategy;
+import com.example.core.search.SearchPage;
 import com.example.core.services.ProductService;
+import com.example.core.stock.StockAvailabilityIndex;
+import com.example.core.stock.StockUpdateResult;
 
 import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.ordersplitting.model.StockLevelModel;
@@ -15,12 +21,20 @@ import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.stock.StockService;
 import de.hybris.platform.store.services.WarehouseService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Default implementation of ProductService.
@@ -31,13 +45,26 @@ import java.util.List;
  * 3. Transaction management (via @Transactional)
  * 4. Coordination of DAO operations
  * 5. Model creation and persistence via ModelService
+ *
+ * Text search is delegated to a pluggable ProductTextSearchStrategy.
+ * Stock checks are answered from the StockAvailabilityIndex once it is built,
+ * and from StockService otherwise.
  */
 public class DefaultProductService implements ProductService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultProductService.class);
+
+    private static final int DEFAULT_STOCK_UPDATE_BATCH_SIZE = 1000;
+
     private ProductDAO productDAO;
+    private StockLevelDAO stockLevelDAO;
     private ModelService modelService;
     private WarehouseService warehouseService;
     private StockService stockService;
+    private ProductTextSearchStrategy productTextSearchStrategy;
+    private StockAvailabilityIndex stockAvailabilityIndex;
+    private TransactionTemplate transactionTemplate;
+    private int stockUpdateBatchSize = DEFAULT_STOCK_UPDATE_BATCH_SIZE;
 
     @Override
     public ProductModel getProductForCode(final String code) {
@@ -45,13 +72,34 @@ public class DefaultProductService implements ProductService {
         return productDAO.findByCode(code);
     }
 
+    @Override
+    public Map<String, ProductModel> getProductsForCodes(final Collection<String> codes) {
+        Assert.notNull(codes, "Product codes cannot be null");
+        return productDAO.findByCodes(codes);
+    }
+
     @Override
     public List<ProductModel> searchProducts(final String query, final int pageSize, final int currentPage) {
+        return searchProducts(query, pageSize, currentPage, false).getResults();
+    }
+
+    @Override
+    public SearchPage<ProductModel> searchProducts(final String query, final int pageSize, final int currentPage,
+            final boolean needTotal) {
         if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+            return SearchPage.empty();
         }
         final int offset = currentPage * pageSize;
-        return productDAO.searchByText(query, pageSize, offset);
+        return productTextSearchStrategy.search(query, pageSize, offset, needTotal);
+    }
+
+    @Override
+    public SearchPage<ProductModel> searchProducts(final String query, final int pageSize, final String cursor) {
+        if (query == null || query.trim().isEmpty()) {
+            return SearchPage.empty();
+        }
+        // The strategy issues the next cursor: it alone knows the ordering it used
+        return productTextSearchStrategy.search(query, pageSize, ProductSearchCursor.decode(cursor));
     }
 
     @Override
@@ -60,6 +108,21 @@ public class DefaultProductService implements ProductService {
         return productDAO.findByCategory(categoryCode);
     }
 
+    @Override
+    public void forEachProductInCategory(final String categoryCode, final int batchSize,
+            final Consumer<List<ProductModel>> batchConsumer) {
+        Assert.notNull(categoryCode, "Category code cannot be null");
+        Assert.notNull(batchConsumer, "Batch consumer cannot be null");
+        productDAO.forEachByCategory(categoryCode, batchSize, batchConsumer);
+    }
+
+    @Override
+    public void forEachLowStockProduct(final int threshold, final int batchSize,
+            final Consumer<List<ProductModel>> batchConsumer) {
+        Assert.notNull(batchConsumer, "Batch consumer cannot be null");
+        productDAO.forEachLowStockProduct(threshold, batchSize, batchConsumer);
+    }
+
     @Override
     @Transactional
     // @Transactional ensures atomicity - place on service methods, not DAOs
@@ -87,10 +150,145 @@ public class DefaultProductService implements ProductService {
         modelService.save(stockLevel);
     }
 
+    @Override
+    // No @Transactional: each chunk commits on its own so a failure late in a large feed keeps earlier work
+    public StockUpdateResult updateProductStocks(final Map<String, Integer> quantities, final String warehouseCode) {
+        Assert.notNull(quantities, "Stock quantities cannot be null");
+        Assert.notNull(warehouseCode, "Warehouse code cannot be null");
+
+        final WarehouseModel warehouse = warehouseService.getWarehouseForCode(warehouseCode);
+        final StockUpdateResult result = new StockUpdateResult();
+
+        final List<String> productCodes = new ArrayList<>(quantities.keySet());
+        for (int from = 0; from < productCodes.size(); from += stockUpdateBatchSize) {
+            final List<String> chunk =
+                    productCodes.subList(from, Math.min(from + stockUpdateBatchSize, productCodes.size()));
+            updateStockChunk(chunk, quantities, warehouse, result);
+        }
+        return result;
+    }
+
+    /**
+     * Upsert one chunk: one product query, one stock level query, one transaction.
+     */
+    private void updateStockChunk(final List<String> productCodes, final Map<String, Integer> quantities,
+            final WarehouseModel warehouse, final StockUpdateResult result) {
+        final List<String> validCodes = new ArrayList<>(productCodes.size());
+        for (final String productCode : productCodes) {
+            final Integer quantity = quantities.get(productCode);
+            if (quantity == null || quantity.intValue() < 0) {
+                result.addFailure(productCode, "Stock quantity cannot be negative or null: " + quantity);
+            } else {
+                validCodes.add(productCode);
+            }
+        }
+
+        final Map<String, ProductModel> products = productDAO.findByCodes(validCodes);
+        final Map<String, StockLevelModel> existing = stockLevelDAO.findByProductCodes(products.keySet(), warehouse);
+
+        final Map<String, StockLevelModel> toSave = new LinkedHashMap<>();
+        final Set<String> createdCodes = new HashSet<>();
+        int unchanged = 0;
+        for (final String productCode : validCodes) {
+            if (!products.containsKey(productCode)) {
+                result.addFailure(productCode, "Product not found: " + productCode);
+                continue;
+            }
+            final int quantity = quantities.get(productCode).intValue();
+            StockLevelModel stockLevel = existing.get(productCode);
+            if (stockLevel == null) {
+                stockLevel = modelService.create(StockLevelModel.class);
+                stockLevel.setProductCode(productCode);
+                stockLevel.setWarehouse(warehouse);
+                createdCodes.add(productCode);
+            } else if (stockLevel.getAvailable() == quantity) {
+                // Full nightly feeds repeat most quantities; skipping them saves a write and a cache invalidation
+                unchanged++;
+                continue;
+            }
+            stockLevel.setAvailable(quantity);
+            toSave.put(productCode, stockLevel);
+        }
+        result.addUnchanged(unchanged);
+
+        try {
+            saveStockLevels(toSave, createdCodes, result);
+        } finally {
+            // Keep the session's model context from growing with the feed: unchanged stock levels
+            // were loaded too, and new or rebuilt ones are only in toSave
+            products.values().forEach(modelService::detach);
+            existing.values().forEach(modelService::detach);
+            toSave.values().forEach(modelService::detach);
+        }
+    }
+
+    private void saveStockLevels(final Map<String, StockLevelModel> toSave, final Set<String> createdCodes,
+            final StockUpdateResult result) {
+        if (toSave.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                modelService.saveAll(toSave.values());
+                return null;
+            });
+            result.addCreated(createdCodes.size());
+            result.addUpdated(toSave.size() - createdCodes.size());
+            return;
+        } catch (final RuntimeException e) {
+            LOG.warn("Batch save of {} stock levels failed, retrying item by item", toSave.size(), e);
+        }
+
+        // The chunk was rolled back: save items one by one to isolate the bad ones
+        for (final Map.Entry<String, StockLevelModel> entry : toSave.entrySet()) {
+            try {
+                // Replace the stored value so the caller detaches the rebuilt model
+                final StockLevelModel stockLevel = rebuildForRetry(entry.getValue(), createdCodes.contains(entry.getKey()));
+                entry.setValue(stockLevel);
+                transactionTemplate.execute(status -> {
+                    modelService.save(stockLevel);
+                    return null;
+                });
+                if (createdCodes.contains(entry.getKey())) {
+                    result.addCreated(1);
+                } else {
+                    result.addUpdated(1);
+                }
+            } catch (final RuntimeException e) {
+                result.addFailure(entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuild a stock level after its batch was rolled back. The rolled back save cleared the
+     * model's dirty state, and a new model may still carry the PK assigned in that transaction,
+     * so saving the same instance again would write nothing.
+     */
+    private StockLevelModel rebuildForRetry(final StockLevelModel stockLevel, final boolean created) {
+        final int quantity = stockLevel.getAvailable();
+        if (created) {
+            final StockLevelModel fresh = modelService.create(StockLevelModel.class);
+            fresh.setProductCode(stockLevel.getProductCode());
+            fresh.setWarehouse(stockLevel.getWarehouse());
+            fresh.setAvailable(quantity);
+            modelService.detach(stockLevel);
+            return fresh;
+        }
+        modelService.refresh(stockLevel);
+        stockLevel.setAvailable(quantity);
+        return stockLevel;
+    }
+
     @Override
     public boolean isProductInStock(final String productCode) {
         Assert.notNull(productCode, "Product code cannot be null");
 
+        // Index knows stock by product code only: no product lookup, no query
+        if (isStockIndexReady()) {
+            return stockAvailabilityIndex.isInStock(productCode);
+        }
+
         final ProductModel product = productDAO.findByCode(productCode);
         if (product == null) {
             return false;
@@ -101,6 +299,32 @@ public class DefaultProductService implements ProductService {
         return totalStock != null && totalStock > 0;
     }
 
+    @Override
+    public Map<String, Boolean> areProductsInStock(final Collection<String> productCodes) {
+        Assert.notNull(productCodes, "Product codes cannot be null");
+
+        final Map<String, Boolean> inStock = new LinkedHashMap<>();
+        if (isStockIndexReady()) {
+            for (final String productCode : productCodes) {
+                inStock.put(productCode, Boolean.valueOf(stockAvailabilityIndex.isInStock(productCode)));
+            }
+            return inStock;
+        }
+
+        // Resolve all products in one query instead of one per code
+        final Map<String, ProductModel> products = productDAO.findByCodes(productCodes);
+        for (final String productCode : productCodes) {
+            final ProductModel product = products.get(productCode);
+            final Long totalStock = product == null ? null : stockService.getTotalStockLevelAmount(product);
+            inStock.put(productCode, Boolean.valueOf(totalStock != null && totalStock > 0));
+        }
+        return inStock;
+    }
+
+    private boolean isStockIndexReady() {
+        return stockAvailabilityIndex != null && stockAvailabilityIndex.isReady();
+    }
+
     @Override
     @Transactional
     public ProductModel createProduct(final String code, final String name, final String catalogVersionId) {
@@ -141,6 +365,10 @@ public class DefaultProductService implements ProductService {
         this.productDAO = productDAO;
     }
 
+    public void setStockLevelDAO(final StockLevelDAO stockLevelDAO) {
+        this.stockLevelDAO = stockLevelDAO;
+    }
+
     public void setModelService(final ModelService modelService) {
         this.modelService = modelService;
     }
@@ -152,4 +380,23 @@ public class DefaultProductService implements ProductService {
     public void setStockService(final StockService stockService) {
         this.stockService = stockService;
     }
+
+    public void setProductTextSearchStrategy(final ProductTextSearchStrategy productTextSearchStrategy) {
+        this.productTextSearchStrategy = productTextSearchStrategy;
+    }
+
+    public void setStockAvailabilityIndex(final StockAvailabilityIndex stockAvailabilityIndex) {
+        this.stockAvailabilityIndex = stockAvailabilityIndex;
+    }
+
+    public void setTransactionTemplate(final TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void setStockUpdateBatchSize(final int stockUpdateBatchSize) {
+        if (stockUpdateBatchSize <= 0) {
+            throw new IllegalArgumentException("Stock update batch size must be positive: " + stockUpdateBatchSize);
+        }
+        this.stockUpdateBatchSize = stockUpdateBatchSize;
+    }
 }
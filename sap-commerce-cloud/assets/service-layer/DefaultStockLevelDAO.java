@@ -0,0 +1,77 @@
+/*
+ * DefaultStockLevelDAO.java
+ * Default implementation of StockLevelDAO using FlexibleSearch.
+ */
+package com.example.core.daos.impl;
+
+import com.example.core.daos.StockLevelDAO;
+
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default implementation of StockLevelDAO using FlexibleSearch.
+ * Like DefaultProductDAO, large code sets are split into bounded IN clauses.
+ */
+public class DefaultStockLevelDAO implements StockLevelDAO {
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private FlexibleSearchService flexibleSearchService;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    @Override
+    public Map<String, StockLevelModel> findByProductCodes(final Collection<String> productCodes,
+            final WarehouseModel warehouse) {
+        if (productCodes == null || productCodes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final String queryString =
+            "SELECT {pk} FROM {StockLevel} " +
+            "WHERE {productCode} IN (?codes) AND {warehouse} = ?warehouse";
+
+        final List<String> distinctCodes = new ArrayList<>(new LinkedHashSet<>(productCodes));
+        final Map<String, StockLevelModel> stockLevelsByCode = new HashMap<>(distinctCodes.size());
+
+        for (int from = 0; from < distinctCodes.size(); from += batchSize) {
+            final List<String> chunk = distinctCodes.subList(from, Math.min(from + batchSize, distinctCodes.size()));
+
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
+            query.addQueryParameter("codes", chunk);
+            query.addQueryParameter("warehouse", warehouse);
+            query.setResultClassList(Collections.singletonList(StockLevelModel.class));
+            query.setNeedTotal(false);
+
+            final SearchResult<StockLevelModel> result = flexibleSearchService.search(query);
+            for (final StockLevelModel stockLevel : result.getResult()) {
+                // Duplicate levels for one product and warehouse: keep the first, as the platform does
+                stockLevelsByCode.putIfAbsent(stockLevel.getProductCode(), stockLevel);
+            }
+        }
+        return stockLevelsByCode;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+}
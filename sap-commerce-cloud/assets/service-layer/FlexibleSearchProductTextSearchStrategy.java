@@ -0,0 +1,53 @@
+/*
+ * FlexibleSearchProductTextSearchStrategy.java
+ * Text search strategy backed by the DAO's LIKE query.
+ * Used as the fallback when no index-based strategy is available.
+ */
+package com.example.core.search.impl;
+
+import com.example.core.daos.ProductDAO;
+import com.example.core.search.ProductSearchCursor;
+import com.example.core.search.ProductTextSearchStrategy;
+import com.example.core.search.SearchPage;
+
+import de.hybris.platform.core.model.product.ProductModel;
+
+import java.util.List;
+
+/**
+ * Delegates to {@link ProductDAO#searchByText}.
+ *
+ * The leading-wildcard LIKE cannot use an index and scans the product table,
+ * so prefer an index-based strategy for interactive search.
+ */
+public class FlexibleSearchProductTextSearchStrategy implements ProductTextSearchStrategy {
+
+    private ProductDAO productDAO;
+
+    @Override
+    public SearchPage<ProductModel> search(final String searchText, final int limit, final int offset,
+            final boolean needTotal) {
+        return productDAO.searchByText(searchText, limit, offset, needTotal);
+    }
+
+    @Override
+    public SearchPage<ProductModel> search(final String searchText, final int limit, final ProductSearchCursor after) {
+        if (after != null && !ProductSearchCursor.ORDER_DATABASE.equals(after.getOrdering())) {
+            // Seeking in database collation with a key from another ordering would skip or repeat rows
+            throw new IllegalArgumentException("Search cursor was issued by another search backend, restart paging");
+        }
+
+        // Fetch one extra row to detect whether another page exists
+        final List<ProductModel> products = productDAO.searchByText(searchText, limit + 1, after);
+        if (products.size() <= limit) {
+            return new SearchPage<>(products, null);
+        }
+        final List<ProductModel> page = products.subList(0, limit);
+        return new SearchPage<>(page, ProductSearchCursor.after(page.get(limit - 1)).encode());
+    }
+
+    // Setter injection
+    public void setProductDAO(final ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+}
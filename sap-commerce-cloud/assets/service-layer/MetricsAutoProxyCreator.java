@@ -0,0 +1,37 @@
+/*
+ * MetricsAutoProxyCreator.java
+ * Wraps the configured beans with MetricsInterceptor when metrics are switched on.
+ */
+package com.example.core.metrics;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator;
+
+/**
+ * BeanNameAutoProxyCreator with an on/off switch.
+ *
+ * Disabled, no proxy is created and the beans are exactly as without instrumentation;
+ * switching requires a restart. Beans are proxied by interface, so they must be injected
+ * by interface type (ProductDAO, ProductService, ProductFacade).
+ */
+public class MetricsAutoProxyCreator extends BeanNameAutoProxyCreator {
+
+    private boolean enabled;
+
+    @Override
+    protected Object[] getAdvicesAndAdvisorsForBean(final Class<?> beanClass, final String beanName,
+            final TargetSource targetSource) {
+        if (!enabled) {
+            return DO_NOT_PROXY;
+        }
+        return super.getAdvicesAndAdvisorsForBean(beanClass, beanName, targetSource);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MetricsMBean.java
+ * JMX view of the InMemoryMetricsRegistry.
+ */
+package com.example.core.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only JMX view: one attribute per recorded method and metric, e.g.
+ * {@code DefaultProductDAO.findByCode.p99Micros}. Methods show up after their first call;
+ * JMX clients pick them up when they reload the MBean info.
+ *
+ * Metrics: calls, errors, errorRate, meanMicros, p50Micros, p99Micros, meanResultSize.
+ * Operation reset() clears all values.
+ *
+ * Injected with the metricsRegistry alias, but only InMemoryMetricsRegistry can be read back.
+ * With any other registry the MBean has no attributes and a warning is logged at startup;
+ * read the values from the system that registry ships them to.
+ */
+public class MetricsMBean implements DynamicMBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsMBean.class);
+
+    private static final String[] METRICS =
+        { "calls", "errors", "errorRate", "meanMicros", "p50Micros", "p99Micros", "meanResultSize" };
+
+    // Null when the configured registry is not in-memory
+    private InMemoryMetricsRegistry metricsRegistry;
+
+    @Override
+    public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+        final int split = attribute.lastIndexOf('.');
+        final InMemoryMetricsRegistry.MethodStats stats = split < 0 || metricsRegistry == null
+                ? null : metricsRegistry.get(attribute.substring(0, split));
+        if (stats == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        switch (attribute.substring(split + 1)) {
+            case "calls":
+                return Long.valueOf(stats.getCalls());
+            case "errors":
+                return Long.valueOf(stats.getErrors());
+            case "errorRate":
+                return Double.valueOf(stats.getErrorRate());
+            case "meanMicros":
+                return Double.valueOf(stats.getMeanMicros());
+            case "p50Micros":
+                return Long.valueOf(stats.getPercentileMicros(0.5));
+            case "p99Micros":
+                return Long.valueOf(stats.getPercentileMicros(0.99));
+            case "meanResultSize":
+                return Double.valueOf(stats.getMeanResultSize());
+            default:
+                throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override
+    public AttributeList getAttributes(final String[] attributes) {
+        final AttributeList list = new AttributeList();
+        for (final String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (final AttributeNotFoundException e) {
+                // Skipped, as the DynamicMBean contract allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(final AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(final String actionName, final Object[] params, final String[] signature)
+            throws ReflectionException {
+        if ("reset".equals(actionName)) {
+            if (metricsRegistry != null) {
+                metricsRegistry.reset();
+            }
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        final List<InMemoryMetricsRegistry.MethodStats> all =
+                metricsRegistry == null ? new ArrayList<>() : metricsRegistry.getAll();
+        for (final InMemoryMetricsRegistry.MethodStats stats : all) {
+            for (final String metric : METRICS) {
+                final String type = metric.startsWith("mean") || "errorRate".equals(metric)
+                        ? Double.class.getName() : Long.class.getName();
+                attributes.add(new MBeanAttributeInfo(stats.getName() + '.' + metric, type, metric, true, false, false));
+            }
+        }
+        final MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clear all metrics",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Product path metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+    }
+
+    // Setter injection
+    public void setMetricsRegistry(final MetricsRegistry metricsRegistry) {
+        if (metricsRegistry instanceof InMemoryMetricsRegistry) {
+            this.metricsRegistry = (InMemoryMetricsRegistry) metricsRegistry;
+        } else {
+            this.metricsRegistry = null;
+            LOG.warn("Metrics registry {} cannot be read over JMX; the metrics MBean stays empty",
+                    metricsRegistry.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * MetricsMBeanExporter.java
+ * Registers the metrics MBean only when metrics are switched on.
+ */
+package com.example.core.metrics;
+
+import org.springframework.jmx.export.MBeanExporter;
+
+/**
+ * MBeanExporter following the switch of MetricsAutoProxyCreator, so metrics have a single
+ * on/off setting. Disabled, nothing is registered and no empty MBean shows up over JMX.
+ */
+public class MetricsMBeanExporter extends MBeanExporter {
+
+    private MetricsAutoProxyCreator metricsAutoProxyCreator;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (metricsAutoProxyCreator.isEnabled()) {
+            super.afterSingletonsInstantiated();
+        }
+    }
+
+    // Setter injection
+    public void setMetricsAutoProxyCreator(final MetricsAutoProxyCreator metricsAutoProxyCreator) {
+        this.metricsAutoProxyCreator = metricsAutoProxyCreator;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * MetricsRegistry.java
+ * Pluggable sink for per-method latency, call, error and result size metrics.
+ */
+package com.example.core.metrics;
+
+/**
+ * Metrics registry used by MetricsInterceptor.
+ *
+ * The interceptor asks for a recorder once per instrumented method and caches it, so
+ * implementations may allocate in {@link #recorder} but must not in {@link MethodRecorder#record}.
+ * InMemoryMetricsRegistry is the default; a Micrometer-backed implementation can map a recorder
+ * to a Timer plus a DistributionSummary tagged with component and method.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * @param component instrumented bean, e.g. DefaultProductDAO
+     * @param method method name, e.g. findByCode
+     * @return recorder for the method; the same instance for repeated calls with the same arguments
+     */
+    MethodRecorder recorder(String component, String method);
+
+    /**
+     * Receives one measurement per call. Called concurrently from request threads.
+     */
+    interface MethodRecorder {
+
+        /**
+         * @param durationNanos wall time of the call
+         * @param resultSize elements returned (collections, maps, pages), 1 for a single object, 0 for null
+         * @param error whether the call threw
+         */
+        void record(long durationNanos, int resultSize, boolean error);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * ParallelBulkConverter.java
+ * Converts large model lists on a bounded worker pool.
+ * Propagates tenant and session context so populators see the caller's currency, language and catalogs.
+ */
+package com.example.facades.converters;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.dto.converter.ConversionException;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.SessionService;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Order-preserving parallel conversion.
+ *
+ * How it works:
+ * - Lists smaller than {@code parallelThreshold} are converted serially on the calling thread
+ * - Larger lists are split into chunks; all but the first go to the executor,
+ *   the calling thread converts the first chunk itself
+ * - Each worker runs with the caller's tenant and a fresh session carrying a copy of the
+ *   caller's session attributes (user, currency, language, session catalog versions)
+ * - Workers receive PKs and load their own models: models are bound to the session
+ *   that loaded them and must not be shared across threads
+ * - Results are joined in chunk order, so output order equals input order
+ *
+ * Use a bounded executor with a caller-runs rejection policy: under saturation the request
+ * thread does the work itself instead of queueing without limit. A chunk that ends up on the
+ * calling thread converts the caller's models directly, without touching its session or tenant.
+ */
+public class ParallelBulkConverter {
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 16;
+    private static final int DEFAULT_CHUNK_SIZE = 8;
+
+    private AsyncTaskExecutor executor;
+    private SessionService sessionService;
+    private ModelService modelService;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Convert all sources, in parallel when the list is large enough.
+     * @param sources the models to convert, attached to the caller's session
+     * @param conversion conversion applied to each model (e.g. converter::convert)
+     * @return converted objects in source order
+     * @throws ConversionException if any conversion fails
+     */
+    public <S extends ItemModel, T> List<T> convertAll(final List<S> sources, final Function<S, T> conversion) {
+        if (sources.size() < parallelThreshold) {
+            return convertChunk(sources, conversion);
+        }
+
+        final Thread caller = Thread.currentThread();
+        final Tenant tenant = Registry.getCurrentTenant();
+        final Map<String, Object> sessionAttributes = new HashMap<>(sessionService.getAllAttributes());
+
+        final List<Future<List<T>>> futures = new ArrayList<>();
+        for (int from = chunkSize; from < sources.size(); from += chunkSize) {
+            final List<S> chunk = sources.subList(from, Math.min(from + chunkSize, sources.size()));
+            final List<PK> pks = new ArrayList<>(chunk.size());
+            for (final S source : chunk) {
+                pks.add(source.getPk());
+            }
+            futures.add(executor.submit(() -> Thread.currentThread() == caller
+                    // Rejected and run by the caller: its session and tenant are already in place
+                    ? convertChunk(chunk, conversion)
+                    : convertInContext(tenant, sessionAttributes, pks, conversion)));
+        }
+
+        final List<T> results = new ArrayList<>(sources.size());
+        results.addAll(convertChunk(sources.subList(0, Math.min(chunkSize, sources.size())), conversion));
+        for (final Future<List<T>> future : futures) {
+            results.addAll(await(future));
+        }
+        return results;
+    }
+
+    private <S extends ItemModel, T> List<T> convertInContext(final Tenant tenant,
+            final Map<String, Object> sessionAttributes, final List<PK> pks, final Function<S, T> conversion) {
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                sessionAttributes.forEach(sessionService::setAttribute);
+                final List<S> chunk = new ArrayList<>(pks.size());
+                for (final PK pk : pks) {
+                    chunk.add(modelService.get(pk));
+                }
+                return convertChunk(chunk, conversion);
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    private static <S, T> List<T> convertChunk(final List<S> chunk, final Function<S, T> conversion) {
+        final List<T> results = new ArrayList<>(chunk.size());
+        for (final S source : chunk) {
+            results.add(conversion.apply(source));
+        }
+        return results;
+    }
+
+    private static <T> List<T> await(final Future<List<T>> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Interrupted while waiting for parallel conversion", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConversionException("Parallel conversion failed", e.getCause());
+        }
+    }
+
+    // Setter injection
+    public void setExecutor(final AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setModelService(final ModelService modelService) {
+        this.modelService = modelService;
+    }
+
+    public void setParallelThreshold(final int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * PkQueryResultCache.java
+ * Bounded cache of FlexibleSearch PK results for catalog-structure queries.
+ * Invalidated per item type by PkQueryResultCacheInvalidationListener.
+ */
+package com.example.core.daos.cache;
+
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * PK-result cache for FlexibleSearch queries whose results change rarely, e.g. category listings.
+ *
+ * Key: query string + parameters + start/count + session context (user, session catalog
+ * versions, language), i.e. everything search restrictions and localized columns depend on.
+ * Values are PK lists only; callers resolve them through ModelService, which has its own cache.
+ *
+ * Invalidation: every entry records the types it depends on (e.g. Product,
+ * CategoryProductRelation, Category). A change of any item of such a type, on this or another
+ * cluster node, bumps the type's version and makes all dependent entries stale. Only types listed
+ * in {@code trackedTypes} can be depended on, so every cached query is guaranteed an invalidation.
+ *
+ * Bounds:
+ * - Weight: each entry weighs 1 plus its PK count; oldest entries are evicted (FIFO)
+ *   once {@code maxWeight} is exceeded
+ * - Time: entries expire {@code ttlSeconds} after being loaded
+ */
+public class PkQueryResultCache {
+
+    private static final long DEFAULT_MAX_WEIGHT = 200_000L;
+    private static final long DEFAULT_TTL_SECONDS = 3600L;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Queue length, tracked separately: ConcurrentLinkedQueue.size() is O(n)
+    private final AtomicInteger queuedKeys = new AtomicInteger();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final Map<String, AtomicLong> typeVersions = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+
+    private CatalogVersionService catalogVersionService;
+    private CommonI18NService commonI18NService;
+    private UserService userService;
+    private long maxWeight = DEFAULT_MAX_WEIGHT;
+    private long ttlSeconds = DEFAULT_TTL_SECONDS;
+
+    /**
+     * Return the cached PKs for the query in the current session context, loading them on a miss.
+     * @param query the query; only read, never executed here
+     * @param dependentTypes item types whose changes can alter the result, e.g. Product
+     * @param loader runs the query and returns its PKs; called on a miss only
+     * @return cached or freshly loaded PKs, unmodifiable
+     * @throws IllegalArgumentException if a dependent type is not tracked
+     */
+    public List<PK> get(final FlexibleSearchQuery query, final Collection<String> dependentTypes,
+            final Supplier<List<PK>> loader) {
+        final String[] types = dependentTypes.toArray(new String[0]);
+        final Key key = createKey(query);
+        final long now = System.currentTimeMillis();
+
+        final Entry cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt <= now) {
+                remove(key, cached);
+                expirations.increment();
+            } else if (!isCurrent(cached)) {
+                remove(key, cached);
+                staleHits.increment();
+            } else {
+                hits.increment();
+                return cached.pks;
+            }
+        }
+
+        misses.increment();
+        // Versions before the load: a change during the load leaves the entry stale, never wrong
+        final long[] versions = new long[types.length];
+        for (int i = 0; i < types.length; i++) {
+            versions[i] = typeVersion(types[i]).get();
+        }
+        final List<PK> pks = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        put(key, new Entry(pks, types, versions, now + ttlSeconds * 1000L));
+        return pks;
+    }
+
+    /**
+     * Make every entry depending on the type stale.
+     * @param type tracked type name, e.g. Product
+     */
+    public void invalidateType(final String type) {
+        final AtomicLong version = typeVersions.get(type);
+        if (version != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Evict everything.
+     */
+    public void invalidateAll() {
+        typeVersions.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+        insertionOrder.clear();
+        queuedKeys.set(0);
+        totalWeight.set(0L);
+    }
+
+    public Set<String> getTrackedTypes() {
+        return Collections.unmodifiableSet(typeVersions.keySet());
+    }
+
+    private boolean isCurrent(final Entry entry) {
+        for (int i = 0; i < entry.types.length; i++) {
+            if (typeVersions.get(entry.types[i]).get() != entry.versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private AtomicLong typeVersion(final String type) {
+        final AtomicLong version = typeVersions.get(type);
+        if (version == null) {
+            throw new IllegalArgumentException("Type " + type + " is not tracked by the PK query result cache; "
+                    + "add it to trackedTypes so its changes invalidate cached results");
+        }
+        return version;
+    }
+
+    private void put(final Key key, final Entry entry) {
+        final Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalWeight.addAndGet(-previous.weight);
+        } else {
+            insertionOrder.add(key);
+            queuedKeys.incrementAndGet();
+        }
+        totalWeight.addAndGet(entry.weight);
+
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        while (totalWeight.get() > maxWeight) {
+            final Key key = insertionOrder.poll();
+            if (key == null) {
+                return;
+            }
+            queuedKeys.decrementAndGet();
+            final Entry entry = entries.get(key);
+            if (entry != null && remove(key, entry)) {
+                evictions.increment();
+            }
+        }
+
+        // Removed keys stay queued until polled; drop them once they dominate the queue
+        if (queuedKeys.get() > 2 * entries.size() + 1024) {
+            insertionOrder.removeIf(queued -> !entries.containsKey(queued));
+            queuedKeys.set(entries.size());
+        }
+    }
+
+    private boolean remove(final Key key, final Entry entry) {
+        if (!entries.remove(key, entry)) {
+            return false;
+        }
+        totalWeight.addAndGet(-entry.weight);
+        return true;
+    }
+
+    private Key createKey(final FlexibleSearchQuery query) {
+        // Sorted so equal parameter maps always yield the same key; models are keyed by PK
+        final Map<String, Object> parameters = new TreeMap<>();
+        query.getQueryParameters().forEach((name, value) -> parameters.put(name, keyValue(value)));
+
+        final Set<String> catalogVersions = new TreeSet<>();
+        for (final CatalogVersionModel catalogVersion : catalogVersionService.getSessionCatalogVersions()) {
+            catalogVersions.add(catalogVersion.getCatalog().getId() + ':' + catalogVersion.getVersion());
+        }
+        final UserModel user = userService.getCurrentUser();
+
+        return new Key(query.getQuery(), parameters, query.getStart(), query.getCount(),
+                user == null ? "" : user.getUid(),
+                String.join(",", catalogVersions),
+                commonI18NService.getCurrentLanguage().getIsocode());
+    }
+
+    private static Object keyValue(final Object value) {
+        if (value instanceof ItemModel) {
+            return ((ItemModel) value).getPk();
+        }
+        if (value instanceof Collection) {
+            final List<Object> values = new ArrayList<>(((Collection<?>) value).size());
+            for (final Object element : (Collection<?>) value) {
+                values.add(keyValue(element));
+            }
+            return values;
+        }
+        return value;
+    }
+
+    // Statistics
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return lookups that found an entry invalidated by a type change
+     */
+    public long getStaleCount() {
+        return staleHits.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getWeight() {
+        return totalWeight.get();
+    }
+
+    // Setter injection
+    public void setCatalogVersionService(final CatalogVersionService catalogVersionService) {
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    public void setCommonI18NService(final CommonI18NService commonI18NService) {
+        this.commonI18NService = commonI18NService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * @param trackedTypes types that cached queries may depend on; set once at startup
+     */
+    public void setTrackedTypes(final Set<String> trackedTypes) {
+        typeVersions.clear();
+        for (final String type : trackedTypes) {
+            typeVersions.put(type, new AtomicLong());
+        }
+    }
+
+    public void setMaxWeight(final long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public void setTtlSeconds(final long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    private static final class Entry {
+        private final List<PK> pks;
+        private final String[] types;
+        private final long[] versions;
+        private final long expiresAt;
+        private final int weight;
+
+        Entry(final List<PK> pks, final String[] types, final long[] versions, final long expiresAt) {
+            this.pks = pks;
+            this.types = types;
+            this.versions = versions;
+            this.expiresAt = expiresAt;
+            this.weight = pks.size() + 1;
+        }
+    }
+
+    private static final class Key {
+        private final String query;
+        private final Map<String, Object> parameters;
+        private final int start;
+        private final int count;
+        private final String user;
+        private final String catalogVersions;
+        private final String language;
+        private final int hash;
+
+        Key(final String query, final Map<String, Object> parameters, final int start, final int count,
+                final String user, final String catalogVersions, final String language) {
+            this.query = query;
+            this.parameters = parameters;
+            this.start = start;
+            this.count = count;
+            this.user = user;
+            this.catalogVersions = catalogVersions;
+            this.language = language;
+            this.hash = Objects.hash(query, parameters, Integer.valueOf(start), Integer.valueOf(count),
+                    user, catalogVersions, language);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return start == other.start
+                    && count == other.count
+                    && query.equals(other.query)
+                    && parameters.equals(other.parameters)
+                    && user.equals(other.user)
+                    && catalogVersions.equals(other.catalogVersions)
+                    && language.equals(other.language);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * PkQueryResultCacheInvalidationListener.java
+ * Invalidates PkQueryResultCache entries by item type when items change.
+ * Listens on the platform entity invalidation topic, which also carries invalidations from other cluster nodes.
+ */
+package com.example.core.daos.cache;
+
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.servicelayer.type.TypeService;
+
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cluster-safe invalidation for {@link PkQueryResultCache}.
+ *
+ * Key layout: {@code [HJMP, ENTITY, typeCode, PK]}. Each type code, including those of
+ * subtypes, is mapped to the tracked types it belongs to; a change of any such item makes
+ * every cached result depending on those types stale. Relation types such as
+ * CategoryProductRelation have their own type code, so assignment changes are caught too.
+ */
+public class PkQueryResultCacheInvalidationListener implements InvalidationListener, InitializingBean {
+
+    private PkQueryResultCache pkQueryResultCache;
+    private TypeService typeService;
+
+    private Map<String, Set<String>> trackedTypesByTypeCode;
+
+    @Override
+    public void afterPropertiesSet() {
+        final Map<String, Set<String>> typesByCode = new HashMap<>();
+        for (final String type : pkQueryResultCache.getTrackedTypes()) {
+            final ComposedTypeModel composedType = typeService.getComposedTypeForCode(type);
+            typesByCode.computeIfAbsent(String.valueOf(composedType.getItemtypecode()), code -> new HashSet<>()).add(type);
+            for (final ComposedTypeModel subType : composedType.getAllSubTypes()) {
+                typesByCode.computeIfAbsent(String.valueOf(subType.getItemtypecode()), code -> new HashSet<>()).add(type);
+            }
+        }
+        trackedTypesByTypeCode = typesByCode;
+
+        InvalidationManager.getInstance()
+                .getInvalidationTopic(new String[] { Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY })
+                .addInvalidationListener(this);
+    }
+
+    @Override
+    public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+            final RemoteInvalidationSource remoteSrc) {
+        if (key.length < 3) {
+            return;
+        }
+        final Set<String> types = trackedTypesByTypeCode.get(String.valueOf(key[2]));
+        if (types != null) {
+            for (final String type : types) {
+                pkQueryResultCache.invalidateType(type);
+            }
+        }
+    }
+
+    // Setter injection
+    public void setPkQueryResultCache(final PkQueryResultCache pkQueryResultCache) {
+        this.pkQueryResultCache = pkQueryResultCache;
+    }
+
+    public void setTypeService(final TypeService typeService) {
+        this.typeService = typeService;
+    }
+}
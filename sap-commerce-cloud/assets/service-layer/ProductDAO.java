@@ -5,8 +5,14 @@
  */
 package com.example.core.daos;
 
+import com.example.core.search.ProductSearchCursor;
+import com.example.core.search.SearchPage;
+
 import de.hybris.platform.core.model.product.ProductModel;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object interface for Product operations.
@@ -25,6 +31,15 @@ public interface ProductDAO {
      */
     ProductModel findByCode(String code);
 
+    /**
+     * Find several products by code in as few queries as possible.
+     * Large code sets are split into bounded IN clauses.
+     * @param codes the product codes
+     * @return map of code to ProductModel in the iteration order of the given codes;
+     *         codes without a matching product are absent
+     */
+    Map<String, ProductModel> findByCodes(Collection<String> codes);
+
     /**
      * Find a product by code within a specific catalog version.
      * @param code the product code
@@ -43,6 +58,27 @@ public interface ProductDAO {
      */
     List<ProductModel> searchByText(String searchText, int limit, int offset);
 
+    /**
+     * Search products by text and optionally compute the total match count in the same search.
+     * @param searchText the text to search for
+     * @param limit maximum results to return
+     * @param offset number of results to skip (for pagination)
+     * @param needTotal whether to compute the total count; skip it for infinite-scroll clients
+     * @return page of matching ProductModel objects with the total count (or UNKNOWN_TOTAL)
+     */
+    SearchPage<ProductModel> searchByText(String searchText, int limit, int offset, boolean needTotal);
+
+    /**
+     * Search products by text using keyset (seek) pagination.
+     * Results are ordered by name, then PK, and start strictly after the cursor position,
+     * so the cost of a page does not grow with its depth.
+     * @param searchText the text to search for
+     * @param limit maximum results to return
+     * @param after position of the last row already returned, or null for the first page
+     * @return list of matching ProductModel objects
+     */
+    List<ProductModel> searchByText(String searchText, int limit, ProductSearchCursor after);
+
     /**
      * Find all products in a category.
      * @param categoryCode the category code
@@ -50,6 +86,16 @@ public interface ProductDAO {
      */
     List<ProductModel> findByCategory(String categoryCode);
 
+    /**
+     * Walk all products in a category in PK-ordered batches.
+     * Each batch is detached from the model context after the consumer returns,
+     * so memory use is bounded by the batch size, not the category size.
+     * @param categoryCode the category code
+     * @param batchSize number of products per batch
+     * @param batchConsumer called once per non-empty batch
+     */
+    void forEachByCategory(String categoryCode, int batchSize, Consumer<List<ProductModel>> batchConsumer);
+
     /**
      * Find products with stock below threshold.
      * @param threshold the minimum stock level
@@ -57,6 +103,15 @@ public interface ProductDAO {
      */
     List<ProductModel> findLowStockProducts(int threshold);
 
+    /**
+     * Walk products with stock below threshold in PK-ordered batches.
+     * Batches are detached after the consumer returns.
+     * @param threshold the minimum stock level
+     * @param batchSize number of products per batch
+     * @param batchConsumer called once per non-empty batch
+     */
+    void forEachLowStockProduct(int threshold, int batchSize, Consumer<List<ProductModel>> batchConsumer);
+
     /**
      * Count total products in the system.
      * @return total product count
@@ -0,0 +1,408 @@
+/*
+ * ProductDataCache.java
+ * Bounded near-cache of converted ProductData for product detail lookups.
+ * Invalidated by ProductDataCacheInvalidationListener on product, price and stock changes.
+ */
+package com.example.facades.cache;
+
+import com.example.facades.data.ProductData;
+
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.europe1.model.PriceRowModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.stock.StockService;
+
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Near-cache for converted ProductData.
+ *
+ * Key: product code + session catalog versions + currency + language + user price group,
+ * i.e. everything the converter's output depends on.
+ *
+ * Bounds:
+ * - Weight: each entry weighs 1 plus its images and categories; oldest entries are evicted
+ *   (FIFO) once {@code maxWeight} is exceeded
+ * - Time: entries expire {@code ttlSeconds} after being loaded, which also bounds staleness
+ *   if an invalidation is ever missed
+ *
+ * Each entry remembers the PKs it depends on: the product, its price rows and its stock levels.
+ * Changes to any of them, removals included, evict the entry without a query.
+ *
+ * Cached ProductData instances are shared between requests: callers must not modify them.
+ *
+ * The invalidation listener is started by this cache, so it only listens while the cache is in use.
+ */
+public class ProductDataCache implements InitializingBean {
+
+    private static final long DEFAULT_MAX_WEIGHT = 50_000L;
+    private static final long DEFAULT_TTL_SECONDS = 300L;
+    // Power of two; codes sharing a stripe only skip caching a concurrent load, never serve stale data
+    private static final int EPOCH_STRIPES = 1024;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Queue length, tracked separately: ConcurrentLinkedQueue.size() is O(n)
+    private final AtomicInteger queuedKeys = new AtomicInteger();
+    private final Map<String, Set<Key>> keysByCode = new ConcurrentHashMap<>();
+    // Product, price row and stock level PKs of cached entries → product code
+    private final Map<Long, String> codesByPk = new ConcurrentHashMap<>();
+    private final AtomicLong totalWeight = new AtomicLong();
+    // Bumped when a code (striped by hash) or everything is invalidated; a load overlapping
+    // an invalidation of its own code is not cached, loads of other codes are unaffected
+    private final AtomicLongArray codeEpochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final AtomicLong globalEpoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private CatalogVersionService catalogVersionService;
+    private CommonI18NService commonI18NService;
+    private UserService userService;
+    private StockService stockService;
+    private ProductDataCacheInvalidationListener invalidationListener;
+    private long maxWeight = DEFAULT_MAX_WEIGHT;
+    private long ttlSeconds = DEFAULT_TTL_SECONDS;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (invalidationListener != null) {
+            invalidationListener.start(this);
+        }
+    }
+
+    /**
+     * Return the cached ProductData for the current session context, loading it on a miss.
+     * A hit neither queries nor converts the product.
+     * @param code the product code
+     * @param productLoader loads the product; called on a miss only
+     * @param converter converts the loaded product; called on a miss only
+     * @return cached or freshly loaded ProductData
+     */
+    public ProductData get(final String code, final Supplier<ProductModel> productLoader,
+            final Function<ProductModel, ProductData> converter) {
+        final Key key = createKey(code);
+        final long now = System.currentTimeMillis();
+
+        final Entry cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.increment();
+                return cached.data;
+            }
+            remove(key, cached);
+            expirations.increment();
+        }
+
+        misses.increment();
+        final int stripe = stripe(code);
+        final long codeEpoch = codeEpochs.get(stripe);
+        final long epoch = globalEpoch.get();
+        final ProductModel product = productLoader.get();
+        final ProductData loaded = converter.apply(product);
+        final long[] dependentPks = dependentPks(product);
+        if (codeEpoch == codeEpochs.get(stripe) && epoch == globalEpoch.get()) {
+            put(key, dependentPks, loaded, now);
+        }
+        return loaded;
+    }
+
+    /**
+     * Evict all entries for a product code, in every catalog version, currency and language.
+     * @param code the product code
+     */
+    public void invalidateCode(final String code) {
+        codeEpochs.incrementAndGet(stripe(code));
+        final Set<Key> keys = keysByCode.remove(code);
+        if (keys != null) {
+            for (final Key key : keys) {
+                final Entry entry = entries.get(key);
+                if (entry != null) {
+                    remove(key, entry);
+                }
+            }
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Evict all entries depending on an item: a product, or one of their price rows or stock levels.
+     * @param pk the item PK
+     * @return false if no cached entry depends on the item
+     */
+    public boolean invalidatePk(final long pk) {
+        final String code = codesByPk.remove(Long.valueOf(pk));
+        if (code == null) {
+            return false;
+        }
+        invalidateCode(code);
+        return true;
+    }
+
+    /**
+     * Evict everything, e.g. after a catalog synchronization.
+     */
+    public void invalidateAll() {
+        globalEpoch.incrementAndGet();
+        entries.clear();
+        insertionOrder.clear();
+        queuedKeys.set(0);
+        keysByCode.clear();
+        codesByPk.clear();
+        totalWeight.set(0L);
+        invalidations.increment();
+    }
+
+    private void put(final Key key, final long[] dependentPks, final ProductData data, final long now) {
+        final Entry entry = new Entry(data, dependentPks, now + ttlSeconds * 1000L, weigh(data));
+        final Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalWeight.addAndGet(-previous.weight);
+        } else {
+            insertionOrder.add(key);
+            queuedKeys.incrementAndGet();
+        }
+        totalWeight.addAndGet(entry.weight);
+        keysByCode.computeIfAbsent(key.code, code -> ConcurrentHashMap.newKeySet()).add(key);
+        for (final long pk : dependentPks) {
+            codesByPk.put(Long.valueOf(pk), key.code);
+        }
+
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        while (totalWeight.get() > maxWeight) {
+            final Key key = insertionOrder.poll();
+            if (key == null) {
+                return;
+            }
+            queuedKeys.decrementAndGet();
+            final Entry entry = entries.get(key);
+            if (entry != null && remove(key, entry)) {
+                evictions.increment();
+            }
+        }
+
+        // Invalidated keys stay queued until polled; drop them once they dominate the queue
+        if (queuedKeys.get() > 2 * entries.size() + 1024) {
+            insertionOrder.removeIf(queued -> !entries.containsKey(queued));
+            queuedKeys.set(entries.size());
+        }
+    }
+
+    private boolean remove(final Key key, final Entry entry) {
+        if (!entries.remove(key, entry)) {
+            return false;
+        }
+        totalWeight.addAndGet(-entry.weight);
+        final Set<Key> keys = keysByCode.get(key.code);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByCode.remove(key.code, keys);
+            }
+        }
+        // Last entry of the code gone: drop its PK mappings too, or evicted codes would pile up
+        if (!keysByCode.containsKey(key.code)) {
+            for (final long pk : entry.dependentPks) {
+                codesByPk.remove(Long.valueOf(pk), key.code);
+            }
+            // A concurrent put for the same code may have registered them again meanwhile
+            if (keysByCode.containsKey(key.code)) {
+                for (final long pk : entry.dependentPks) {
+                    codesByPk.put(Long.valueOf(pk), key.code);
+                }
+            }
+        }
+        return true;
+    }
+
+    private long[] dependentPks(final ProductModel product) {
+        final List<Long> pks = new ArrayList<>();
+        pks.add(Long.valueOf(product.getPk().getLongValue()));
+        final Collection<PriceRowModel> priceRows = product.getEurope1Prices();
+        if (priceRows != null) {
+            for (final PriceRowModel priceRow : priceRows) {
+                pks.add(Long.valueOf(priceRow.getPk().getLongValue()));
+            }
+        }
+        if (stockService != null) {
+            for (final StockLevelModel stockLevel : stockService.getAllStockLevels(product)) {
+                pks.add(Long.valueOf(stockLevel.getPk().getLongValue()));
+            }
+        }
+        final long[] result = new long[pks.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pks.get(i).longValue();
+        }
+        return result;
+    }
+
+    private static int stripe(final String code) {
+        return code.hashCode() & (EPOCH_STRIPES - 1);
+    }
+
+    private static int weigh(final ProductData data) {
+        int weight = 1;
+        if (data.getImages() != null) {
+            weight += data.getImages().size();
+        }
+        if (data.getCategories() != null) {
+            weight += data.getCategories().size();
+        }
+        return weight;
+    }
+
+    private Key createKey(final String code) {
+        // Sorted so the same set of session catalog versions always yields the same key
+        final Set<String> catalogVersions = new TreeSet<>();
+        for (final CatalogVersionModel catalogVersion : catalogVersionService.getSessionCatalogVersions()) {
+            catalogVersions.add(catalogVersion.getCatalog().getId() + ':' + catalogVersion.getVersion());
+        }
+        final UserModel user = userService.getCurrentUser();
+        final Object priceGroup = user == null ? null : user.getEurope1PriceFactory_UPG();
+
+        return new Key(code, String.join(",", catalogVersions),
+                commonI18NService.getCurrentCurrency().getIsocode(),
+                commonI18NService.getCurrentLanguage().getIsocode(),
+                priceGroup == null ? "" : priceGroup.toString());
+    }
+
+    // Statistics
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getWeight() {
+        return totalWeight.get();
+    }
+
+    // Setter injection
+    public void setCatalogVersionService(final CatalogVersionService catalogVersionService) {
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    public void setCommonI18NService(final CommonI18NService commonI18NService) {
+        this.commonI18NService = commonI18NService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setStockService(final StockService stockService) {
+        this.stockService = stockService;
+    }
+
+    public void setInvalidationListener(final ProductDataCacheInvalidationListener invalidationListener) {
+        this.invalidationListener = invalidationListener;
+    }
+
+    public void setMaxWeight(final long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public void setTtlSeconds(final long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    private static final class Entry {
+        private final ProductData data;
+        private final long[] dependentPks;
+        private final long expiresAt;
+        private final int weight;
+
+        Entry(final ProductData data, final long[] dependentPks, final long expiresAt, final int weight) {
+            this.data = data;
+            this.dependentPks = dependentPks;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Key {
+        private final String code;
+        private final String catalogVersions;
+        private final String currency;
+        private final String language;
+        private final String priceGroup;
+        private final int hash;
+
+        Key(final String code, final String catalogVersions, final String currency, final String language,
+                final String priceGroup) {
+            this.code = code;
+            this.catalogVersions = catalogVersions;
+            this.currency = currency;
+            this.language = language;
+            this.priceGroup = priceGroup;
+            this.hash = Objects.hash(code, catalogVersions, currency, language, priceGroup);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return code.equals(other.code)
+                    && catalogVersions.equals(other.catalogVersions)
+                    && currency.equals(other.currency)
+                    && language.equals(other.language)
+                    && priceGroup.equals(other.priceGroup);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
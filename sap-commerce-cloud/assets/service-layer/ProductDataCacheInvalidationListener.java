@@ -0,0 +1,244 @@
+/*
+ * ProductDataCacheInvalidationListener.java
+ * Evicts ProductDataCache entries when products, prices or stock levels change.
+ * Listens on the platform entity invalidation topic, which also carries invalidations from other cluster nodes.
+ */
+package com.example.facades.cache;
+
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.europe1.model.PriceRowModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-safe invalidation for {@link ProductDataCache}.
+ *
+ * The platform publishes an invalidation for every saved or removed item on the
+ * {@code [HJMP, ENTITY]} topic, locally and, in a cluster, for changes made on other nodes.
+ * Key layout: {@code [HJMP, ENTITY, typeCode, PK]}.
+ *
+ * Mapping to cache entries:
+ * - Product, or a price row / stock level of a cached product: evict through the cache's
+ *   PK → code map, no query. Removals are covered the same way
+ * - Other price rows / stock levels (new rows, or rows of uncached products): queued, and
+ *   resolved to product codes on a background thread, one IN query per {@code refreshBatchSize}
+ *   PKs every {@code refreshIntervalMillis}. A price row for a price group instead of a product
+ *   evicts everything; a row that is gone was never part of a cached entry
+ *
+ * Nothing runs on the invalidating thread besides a map lookup. Started by
+ * {@link ProductDataCache#afterPropertiesSet()}, so it stays idle while the cache is not wired in.
+ */
+public class ProductDataCacheInvalidationListener implements InvalidationListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductDataCacheInvalidationListener.class);
+
+    private static final int DEFAULT_REFRESH_BATCH_SIZE = 1000;
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 200L;
+
+    private static final String PRICE_ROW_QUERY =
+        "SELECT {pr.pk}, {p.code}, {pr.productId} " +
+        "FROM {PriceRow AS pr LEFT JOIN Product AS p ON {pr.product} = {p.pk}} " +
+        "WHERE {pr.pk} IN (?pks)";
+
+    private static final List<Class<?>> PRICE_ROW_RESULT_CLASSES = Arrays.asList(Long.class, String.class, String.class);
+
+    private static final String STOCK_LEVEL_QUERY = "SELECT {pk}, {productCode} FROM {StockLevel} WHERE {pk} IN (?pks)";
+
+    private static final List<Class<?>> STOCK_LEVEL_RESULT_CLASSES = Arrays.asList(Long.class, String.class);
+
+    private FlexibleSearchService flexibleSearchService;
+    private TypeService typeService;
+    private SessionService sessionService;
+    private UserService userService;
+    private int refreshBatchSize = DEFAULT_REFRESH_BATCH_SIZE;
+    private long refreshIntervalMillis = DEFAULT_REFRESH_INTERVAL_MILLIS;
+
+    private volatile ProductDataCache productDataCache;
+    private Set<String> productTypeCodes;
+    private Set<String> priceRowTypeCodes;
+    private Set<String> stockLevelTypeCodes;
+    private final Set<Long> pendingPriceRowPks = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingStockLevelPks = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService resolver;
+
+    /**
+     * Start evicting entries of the given cache. Called once by the cache itself.
+     * @param cache the cache to keep current
+     */
+    public synchronized void start(final ProductDataCache cache) {
+        if (productDataCache != null) {
+            return;
+        }
+        productTypeCodes = typeCodesOf(ProductModel.class);
+        priceRowTypeCodes = typeCodesOf(PriceRowModel.class);
+        stockLevelTypeCodes = typeCodesOf(StockLevelModel.class);
+        productDataCache = cache;
+
+        final Tenant tenant = Registry.getCurrentTenant();
+        resolver = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-data-cache-"));
+        resolver.scheduleWithFixedDelay(() -> resolveInContext(tenant),
+                refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+
+        InvalidationManager.getInstance()
+                .getInvalidationTopic(new String[] { Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY })
+                .addInvalidationListener(this);
+    }
+
+    public synchronized void shutdown() {
+        if (resolver != null) {
+            resolver.shutdown();
+        }
+    }
+
+    @Override
+    public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+            final RemoteInvalidationSource remoteSrc) {
+        final ProductDataCache cache = productDataCache;
+        if (cache == null || key.length < 4) {
+            return;
+        }
+        final String typeCode = String.valueOf(key[2]);
+        final long pk = ((PK) key[3]).getLongValue();
+
+        if (productTypeCodes.contains(typeCode)) {
+            cache.invalidatePk(pk);
+        } else if (priceRowTypeCodes.contains(typeCode)) {
+            if (!cache.invalidatePk(pk)) {
+                pendingPriceRowPks.add(Long.valueOf(pk));
+            }
+        } else if (stockLevelTypeCodes.contains(typeCode)) {
+            if (!cache.invalidatePk(pk)) {
+                pendingStockLevelPks.add(Long.valueOf(pk));
+            }
+        }
+    }
+
+    private void resolveInContext(final Tenant tenant) {
+        if (pendingPriceRowPks.isEmpty() && pendingStockLevelPks.isEmpty()) {
+            return;
+        }
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                userService.setCurrentUser(userService.getAdminUser());
+                resolve(pendingPriceRowPks, PRICE_ROW_QUERY, PRICE_ROW_RESULT_CLASSES);
+                resolve(pendingStockLevelPks, STOCK_LEVEL_QUERY, STOCK_LEVEL_RESULT_CLASSES);
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final RuntimeException e) {
+            // Keep the resolver alive; failed PKs were re-queued
+            LOG.warn("Could not resolve product data cache invalidations", e);
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    private void resolve(final Set<Long> pending, final String queryString, final List<Class<?>> resultClasses) {
+        final List<Long> batch = new ArrayList<>(refreshBatchSize);
+        final Iterator<Long> it = pending.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            it.remove();
+            if (batch.size() == refreshBatchSize || !it.hasNext()) {
+                resolveBatch(pending, queryString, resultClasses, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void resolveBatch(final Set<Long> pending, final String queryString, final List<Class<?>> resultClasses,
+            final List<Long> pks) {
+        final List<List<Object>> rows;
+        try {
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
+            query.addQueryParameter("pks", pks);
+            query.setResultClassList(resultClasses);
+            // Must see the committed rows, not a cached pre-change result
+            query.setDisableCaching(true);
+            final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+            rows = result.getResult();
+        } catch (final RuntimeException e) {
+            pending.addAll(pks);
+            throw e;
+        }
+
+        // Rows not returned were removed; a removed row of a cached product was evicted by PK already
+        for (final List<Object> row : rows) {
+            // Price rows reference the product or only carry its code in productId
+            final String productCode = row.get(1) != null || row.size() < 3 ? (String) row.get(1) : (String) row.get(2);
+            if (productCode == null) {
+                // Price row for a price group, not a single product
+                productDataCache.invalidateAll();
+                return;
+            }
+            productDataCache.invalidateCode(productCode);
+        }
+    }
+
+    private Set<String> typeCodesOf(final Class<?> modelClass) {
+        // Invalidation keys carry the type code as a string; include all subtypes
+        final ComposedTypeModel type = typeService.getComposedTypeForClass(modelClass);
+        final Set<String> typeCodes = new HashSet<>();
+        typeCodes.add(String.valueOf(type.getItemtypecode()));
+        for (final ComposedTypeModel subType : type.getAllSubTypes()) {
+            typeCodes.add(String.valueOf(subType.getItemtypecode()));
+        }
+        return typeCodes;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setTypeService(final TypeService typeService) {
+        this.typeService = typeService;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setRefreshBatchSize(final int refreshBatchSize) {
+        this.refreshBatchSize = refreshBatchSize;
+    }
+
+    public void setRefreshIntervalMillis(final long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+}
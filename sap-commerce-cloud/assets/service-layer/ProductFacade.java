@@ -5,8 +5,13 @@
  */
 package com.example.facades;
 
+import com.example.core.search.SearchPage;
 import com.example.facades.data.ProductData;
+import com.example.facades.product.ProductOption;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Facade interface for product operations.
@@ -22,6 +27,22 @@ public interface ProductFacade {
      */
     ProductData getProductForCode(String code);
 
+    /**
+     * Retrieve product details, populating only the requested parts.
+     * @param code the unique product code
+     * @param options parts of ProductData to populate; BASIC fields are always populated
+     * @return ProductData containing the requested details
+     * @throws UnknownIdentifierException if product not found
+     */
+    ProductData getProductForCodeAndOptions(String code, Collection<ProductOption> options);
+
+    /**
+     * Retrieve product details for several codes using batched lookups.
+     * @param codes the product codes
+     * @return list of ProductData in input order; unknown codes are skipped
+     */
+    List<ProductData> getProductsForCodes(Collection<String> codes);
+
     /**
      * Search products by text query with pagination.
      * @param query the search query string
@@ -31,6 +52,48 @@ public interface ProductFacade {
      */
     List<ProductData> searchProducts(String query, int pageSize, int currentPage);
 
+    /**
+     * Search products with pagination and get the total count from the same search.
+     * @param query the search query string
+     * @param pageSize maximum number of results per page
+     * @param currentPage zero-based page index
+     * @param needTotal false to skip counting (e.g. infinite scroll)
+     * @return page of ProductData with the total count (or UNKNOWN_TOTAL)
+     */
+    SearchPage<ProductData> searchProducts(String query, int pageSize, int currentPage, boolean needTotal);
+
+    /**
+     * Search products with pagination, populating only the requested parts of each result.
+     * @param query the search query string
+     * @param pageSize maximum number of results per page
+     * @param currentPage zero-based page index
+     * @param needTotal false to skip counting (e.g. infinite scroll)
+     * @param options parts of ProductData to populate; BASIC fields are always populated
+     * @return page of ProductData with the total count (or UNKNOWN_TOTAL)
+     */
+    SearchPage<ProductData> searchProducts(String query, int pageSize, int currentPage, boolean needTotal,
+            Collection<ProductOption> options);
+
+    /**
+     * Search products by text query with cursor-based pagination.
+     * @param query the search query string
+     * @param pageSize maximum number of results per page
+     * @param cursor opaque cursor from the previous page, or null / {@code "*"} for the first page
+     * @return page of ProductData with the cursor for the next page
+     */
+    SearchPage<ProductData> searchProducts(String query, int pageSize, String cursor);
+
+    /**
+     * Search products with cursor-based pagination, populating only the requested parts of each result.
+     * @param query the search query string
+     * @param pageSize maximum number of results per page
+     * @param cursor opaque cursor from the previous page, or null / {@code "*"} for the first page
+     * @param options parts of ProductData to populate; BASIC fields are always populated
+     * @return page of ProductData with the cursor for the next page
+     */
+    SearchPage<ProductData> searchProducts(String query, int pageSize, String cursor,
+            Collection<ProductOption> options);
+
     /**
      * Retrieve all products in a specific category.
      * @param categoryCode the category code
@@ -38,6 +101,15 @@ public interface ProductFacade {
      */
     List<ProductData> getProductsForCategory(String categoryCode);
 
+    /**
+     * Convert all products in a category batch by batch, for exports and feeds
+     * over categories too large to hold in memory at once.
+     * @param categoryCode the category code
+     * @param batchSize products per batch
+     * @param batchConsumer receives each converted batch
+     */
+    void forEachProductInCategory(String categoryCode, int batchSize, Consumer<List<ProductData>> batchConsumer);
+
     /**
      * Update product stock level.
      * @param productCode the product code
@@ -51,4 +123,11 @@ public interface ProductFacade {
      * @return true if stock level > 0
      */
     boolean isProductAvailable(String productCode);
+
+    /**
+     * Check availability for several products at once.
+     * @param productCodes the product codes
+     * @return product code to availability flag, in input order
+     */
+    Map<String, Boolean> areProductsAvailable(Collection<String> productCodes);
 }
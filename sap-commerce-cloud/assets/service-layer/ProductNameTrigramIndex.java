@@ -0,0 +1,255 @@
+/*
+ * ProductNameTrigramIndex.java
+ * In-memory trigram inverted index over product names.
+ * Plain Java: no platform dependencies, safe to unit test in isolation.
+ */
+package com.example.core.search.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Trigram index answering case-insensitive substring queries
+ * (the same semantics as {@code LOWER(name) LIKE '%text%'}).
+ *
+ * How a query is answered:
+ * 1. Split the lower-cased query into overlapping 3-character grams
+ * 2. Intersect the posting lists (PK sets) of those grams, smallest first
+ * 3. Verify each candidate's name really contains the query (grams can match out of order)
+ *    and, if given, belongs to one of the requested catalog versions
+ * 4. Keep only the first {@code limit} matches after the cursor in {@link #NAME_PK_ORDER},
+ *    with a bounded heap: O(candidates · log limit), no full sort
+ *
+ * Queries shorter than three characters have no grams: they walk a name-ordered view from
+ * the cursor and stop after {@code limit} matches, so common short prefixes return quickly.
+ * Only rare short sequences scan far.
+ *
+ * {@link #NAME_PK_ORDER} is Java string order, which need not match the database collation;
+ * cursors built from this index must only be used with this index.
+ *
+ * Concurrency: reads are lock-free; writes are serialized. A reader running
+ * concurrently with a write may miss that one change, never return a wrong match,
+ * because step 3 re-checks the current name.
+ */
+public class ProductNameTrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Sort order of results and cursors of this index: name, then PK. Indexed entries always
+     * have a name; a null name can only come from a cursor and sorts first.
+     */
+    public static final Comparator<Entry> NAME_PK_ORDER =
+            Comparator.comparing(Entry::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                    .thenComparingLong(Entry::getPk);
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> byName = new ConcurrentSkipListSet<>(NAME_PK_ORDER);
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Add or replace the name indexed for a product.
+     * @param pk the product PK
+     * @param name the product name; null or empty removes the product
+     * @param catalogVersionPk PK of the product's catalog version
+     */
+    public synchronized void put(final long pk, final String name, final long catalogVersionPk) {
+        removeInternal(pk);
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        final Entry entry = new Entry(pk, name, catalogVersionPk);
+        entries.put(pk, entry);
+        byName.add(entry);
+        for (final String gram : grams(entry.normalizedName)) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(pk);
+        }
+    }
+
+    /**
+     * Remove a product from the index. No-op if it is not indexed.
+     * @param pk the product PK
+     */
+    public synchronized void remove(final long pk) {
+        removeInternal(pk);
+    }
+
+    /**
+     * Find the first products after a position whose name contains the given text, ignoring case.
+     * @param text the text to search for
+     * @param after position to seek past, or null to start at the beginning
+     * @param limit maximum number of entries to return
+     * @param catalogVersionPks catalog versions to match, or null for all
+     * @return matching entries sorted by name, then PK
+     */
+    public List<Entry> find(final String text, final Entry after, final int limit,
+            final Set<Long> catalogVersionPks) {
+        final String needle = normalize(text);
+        if (needle.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (needle.length() < GRAM_LENGTH) {
+            return scanInOrder(needle, after, limit, catalogVersionPks);
+        }
+
+        // Max-heap of the best matches so far; the head is the one to drop first
+        final PriorityQueue<Entry> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, NAME_PK_ORDER.reversed());
+        for (final Long pk : intersect(needle)) {
+            final Entry entry = entries.get(pk);
+            if (entry == null || !entry.matches(needle, catalogVersionPks)
+                    || (after != null && NAME_PK_ORDER.compare(entry, after) <= 0)) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (NAME_PK_ORDER.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        final List<Entry> matches = new ArrayList<>(best);
+        matches.sort(NAME_PK_ORDER);
+        return matches;
+    }
+
+    /**
+     * Count all products whose name contains the given text, ignoring case.
+     * Short queries (under three characters) scan every entry.
+     * @param text the text to search for
+     * @param catalogVersionPks catalog versions to match, or null for all
+     * @return number of matches
+     */
+    public int count(final String text, final Set<Long> catalogVersionPks) {
+        final String needle = normalize(text);
+        if (needle.isEmpty()) {
+            return 0;
+        }
+        final Collection<Long> candidates = needle.length() < GRAM_LENGTH ? entries.keySet() : intersect(needle);
+        int count = 0;
+        for (final Long pk : candidates) {
+            final Entry entry = entries.get(pk);
+            if (entry != null && entry.matches(needle, catalogVersionPks)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private List<Entry> scanInOrder(final String needle, final Entry after, final int limit,
+            final Set<Long> catalogVersionPks) {
+        final List<Entry> matches = new ArrayList<>(Math.min(limit, 1024));
+        for (final Entry entry : after == null ? byName : byName.tailSet(after, false)) {
+            if (entry.matches(needle, catalogVersionPks)) {
+                matches.add(entry);
+                if (matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Collection<Long> intersect(final String needle) {
+        final List<Set<Long>> lists = new ArrayList<>();
+        for (final String gram : grams(needle)) {
+            final Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                // A gram nobody has: no product can match
+                return Collections.emptyList();
+            }
+            lists.add(posting);
+        }
+
+        // Walk the shortest list and probe the others: cost is bounded by the rarest gram
+        lists.sort(Comparator.comparingInt(Set::size));
+        final List<Long> result = new ArrayList<>();
+        for (final Long pk : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(pk);
+            }
+            if (inAll) {
+                result.add(pk);
+            }
+        }
+        return result;
+    }
+
+    private void removeInternal(final long pk) {
+        final Entry previous = entries.remove(pk);
+        if (previous == null) {
+            return;
+        }
+        byName.remove(previous);
+        for (final String gram : grams(previous.normalizedName)) {
+            postings.computeIfPresent(gram, (key, posting) -> {
+                posting.remove(pk);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    private static Set<String> grams(final String normalized) {
+        final Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(final String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexed product: PK plus the name and catalog version it was indexed under.
+     */
+    public static final class Entry {
+        private final long pk;
+        private final String name;
+        private final String normalizedName;
+        private final long catalogVersionPk;
+
+        /**
+         * Position for {@link #find}: only name and PK take part in the order.
+         */
+        Entry(final long pk, final String name) {
+            this(pk, name, 0L);
+        }
+
+        Entry(final long pk, final String name, final long catalogVersionPk) {
+            this.pk = pk;
+            this.name = name;
+            this.normalizedName = normalize(name);
+            this.catalogVersionPk = catalogVersionPk;
+        }
+
+        private boolean matches(final String needle, final Set<Long> catalogVersionPks) {
+            return normalizedName.contains(needle)
+                    && (catalogVersionPks == null || catalogVersionPks.contains(Long.valueOf(catalogVersionPk)));
+        }
+
+        public long getPk() {
+            return pk;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * ProductOption.java
+ * Options selecting which parts of ProductData are populated.
+ * Keys of the productConfiguredPopulator map in spring-config.xml.
+ */
+package com.example.facades.product;
+
+/**
+ * Product data options.
+ *
+ * Each option maps to one populator. Request only what the client displays:
+ * PRICE and STOCK trigger price-row and stock-level lookups per product.
+ */
+public enum ProductOption {
+
+    /** Code, name, description, images: always populated by the basic converter. */
+    BASIC,
+
+    /** Price and currency (ProductPricePopulator). */
+    PRICE,
+
+    /** Stock level, stock status, purchasable flag (ProductStockPopulator). */
+    STOCK
+}
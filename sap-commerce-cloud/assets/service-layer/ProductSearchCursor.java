@@ -0,0 +1,135 @@
+/*
+ * ProductSearchCursor.java
+ * Opaque cursor for keyset (seek) pagination of product search results.
+ * Encodes the sort key of the last row returned so the next page can seek past it.
+ */
+package com.example.core.search;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a result list ordered by {@code {name} ASC, {pk} ASC}.
+ *
+ * Keyset pagination pattern:
+ * - The cursor holds the (name, pk) of the last row of the previous page
+ * - The next query seeks with {@code WHERE (name, pk) > (lastName, lastPk)} instead of OFFSET
+ * - The database can start reading at the seek position, so deep pages cost the same as page 0
+ *
+ * Each cursor records the ordering it was created in. Search backends order names differently
+ * (database collation vs. Java string order), so a backend must only seek with its own cursors:
+ * {@link #ORDER_DATABASE} for FlexibleSearch, {@link #ORDER_NAME_INDEX} for the in-memory index.
+ *
+ * Clients must treat the encoded form as opaque; only this class reads or writes it.
+ */
+public final class ProductSearchCursor {
+
+    /** Cursor value clients send to request the first page in cursor mode. */
+    public static final String INITIAL = "*";
+
+    /** Ordering of FlexibleSearch results: {@code ORDER BY {name}, {pk}} in the database collation. */
+    public static final String ORDER_DATABASE = "db";
+
+    /** Ordering of the in-memory name index: Java string order of the indexed name, then PK. */
+    public static final String ORDER_NAME_INDEX = "idx";
+
+    private static final char SEPARATOR = '\u0000';
+    // Precedes a present name, so a null name (empty field) differs from "" and from "null"
+    private static final char NAME_PRESENT = '=';
+
+    private final String ordering;
+    private final String lastName;
+    private final PK lastPk;
+
+    private ProductSearchCursor(final String ordering, final String lastName, final PK lastPk) {
+        this.ordering = ordering;
+        this.lastName = lastName;
+        this.lastPk = lastPk;
+    }
+
+    /**
+     * Create a database-ordered cursor positioned after the given product.
+     * @param product the last product of the current page
+     * @return cursor for the following page
+     */
+    public static ProductSearchCursor after(final ProductModel product) {
+        return new ProductSearchCursor(ORDER_DATABASE, product.getName(), product.getPk());
+    }
+
+    /**
+     * Create a cursor positioned after the given sort key.
+     * @param ordering ordering the sort key belongs to, e.g. {@link #ORDER_NAME_INDEX}
+     * @param lastName name of the last row of the current page, may be null
+     * @param lastPk PK of the last row of the current page
+     * @return cursor for the following page
+     */
+    public static ProductSearchCursor after(final String ordering, final String lastName, final PK lastPk) {
+        return new ProductSearchCursor(ordering, lastName, lastPk);
+    }
+
+    /**
+     * Decode a cursor received from a client.
+     * @param encoded the opaque cursor string
+     * @return the decoded cursor, or null for the initial cursor (first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static ProductSearchCursor decode(final String encoded) {
+        if (encoded == null || encoded.isEmpty() || INITIAL.equals(encoded)) {
+            return null;
+        }
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            final int first = raw.indexOf(SEPARATOR);
+            final int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("Invalid search cursor: " + encoded);
+            }
+            final PK lastPk = PK.fromLong(Long.parseLong(raw.substring(last + 1)));
+            return new ProductSearchCursor(raw.substring(0, first), decodeName(raw.substring(first + 1, last)), lastPk);
+        } catch (final IllegalArgumentException e) {
+            // Base64 and number format errors both surface as IllegalArgumentException
+            throw new IllegalArgumentException("Invalid search cursor: " + encoded, e);
+        }
+    }
+
+    /**
+     * Encode this cursor for transport to the client.
+     * @return URL-safe opaque string
+     */
+    public String encode() {
+        final String name = lastName == null ? "" : NAME_PRESENT + lastName;
+        final String raw = ordering + SEPARATOR + name + SEPARATOR + lastPk.getLongValue();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeName(final String field) {
+        if (field.isEmpty()) {
+            return null;
+        }
+        if (field.charAt(0) != NAME_PRESENT) {
+            throw new IllegalArgumentException("Invalid name in search cursor");
+        }
+        return field.substring(1);
+    }
+
+    /**
+     * @return the ordering this cursor was created in, e.g. {@link #ORDER_DATABASE}
+     */
+    public String getOrdering() {
+        return ordering;
+    }
+
+    /**
+     * @return name of the last row returned, or null if that product has no name
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    public PK getLastPk() {
+        return lastPk;
+    }
+}
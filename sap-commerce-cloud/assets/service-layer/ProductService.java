@@ -5,8 +5,14 @@
  */
 package com.example.core.services;
 
+import com.example.core.search.SearchPage;
+import com.example.core.stock.StockUpdateResult;
+
 import de.hybris.platform.core.model.product.ProductModel;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Service interface for product business operations.
@@ -21,6 +27,14 @@ public interface ProductService {
      */
     ProductModel getProductForCode(String code);
 
+    /**
+     * Retrieve several products by code with batched queries.
+     * Prefer this over calling {@link #getProductForCode(String)} in a loop.
+     * @param codes the product codes
+     * @return map of code to ProductModel in input order; unknown codes are absent
+     */
+    Map<String, ProductModel> getProductsForCodes(Collection<String> codes);
+
     /**
      * Search products by text query with pagination.
      * @param query search text
@@ -30,6 +44,27 @@ public interface ProductService {
      */
     List<ProductModel> searchProducts(String query, int pageSize, int currentPage);
 
+    /**
+     * Search products by text query with pagination, returning results and total count from one search.
+     * @param query search text
+     * @param pageSize results per page
+     * @param currentPage zero-based page index
+     * @param needTotal whether to compute the total match count
+     * @return page of matching ProductModel objects with the total count (or UNKNOWN_TOTAL)
+     */
+    SearchPage<ProductModel> searchProducts(String query, int pageSize, int currentPage, boolean needTotal);
+
+    /**
+     * Search products by text query with cursor-based pagination.
+     * Unlike offset paging, deep pages are as cheap as the first one.
+     * @param query search text
+     * @param pageSize results per page
+     * @param cursor opaque cursor from a previous page, or null / {@code "*"} for the first page
+     * @return page of matching ProductModel objects with the cursor for the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    SearchPage<ProductModel> searchProducts(String query, int pageSize, String cursor);
+
     /**
      * Get all products belonging to a category.
      * @param categoryCode the category code
@@ -37,6 +72,23 @@ public interface ProductService {
      */
     List<ProductModel> getProductsForCategory(String categoryCode);
 
+    /**
+     * Process all products in a category batch by batch with flat memory use.
+     * Models are detached after each batch; do not keep references to them.
+     * @param categoryCode the category code
+     * @param batchSize products per batch
+     * @param batchConsumer called once per batch
+     */
+    void forEachProductInCategory(String categoryCode, int batchSize, Consumer<List<ProductModel>> batchConsumer);
+
+    /**
+     * Process products with stock below threshold batch by batch.
+     * @param threshold the minimum stock level
+     * @param batchSize products per batch
+     * @param batchConsumer called once per batch
+     */
+    void forEachLowStockProduct(int threshold, int batchSize, Consumer<List<ProductModel>> batchConsumer);
+
     /**
      * Update the stock level for a product. This method is transactional.
      * @param productCode the product code
@@ -44,6 +96,16 @@ public interface ProductService {
      */
     void updateProductStock(String productCode, int quantity);
 
+    /**
+     * Set stock for many products in one warehouse, e.g. from an ERP feed.
+     * Existing stock levels are updated, missing ones created. Items are saved in chunks,
+     * each chunk in its own transaction; invalid items are reported, not thrown.
+     * @param quantities product code to new stock quantity (must be non-negative)
+     * @param warehouseCode code of the warehouse to update
+     * @return counts and per-item failures
+     */
+    StockUpdateResult updateProductStocks(Map<String, Integer> quantities, String warehouseCode);
+
     /**
      * Check if product has available stock.
      * @param productCode the product code
@@ -51,6 +113,13 @@ public interface ProductService {
      */
     boolean isProductInStock(String productCode);
 
+    /**
+     * Check stock for several products at once.
+     * @param productCodes the product codes
+     * @return product code to in-stock flag, in input order; unknown codes map to false
+     */
+    Map<String, Boolean> areProductsInStock(Collection<String> productCodes);
+
     /**
      * Create a new product with the given attributes.
      * @param code unique product code
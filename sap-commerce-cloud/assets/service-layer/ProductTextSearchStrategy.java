@@ -0,0 +1,43 @@
+/*
+ * ProductTextSearchStrategy.java
+ * Strategy interface for free-text product search.
+ * Lets the service swap the search backend without changing its callers.
+ */
+package com.example.core.search;
+
+import de.hybris.platform.core.model.product.ProductModel;
+
+/**
+ * Strategy for case-insensitive substring search on product names.
+ *
+ * Implementations:
+ * - FlexibleSearchProductTextSearchStrategy: LIKE query, always available (fallback)
+ * - TrigramProductTextSearchStrategy: in-memory trigram index, no database query
+ *
+ * All implementations order results by name, then PK, so cursors stay valid across pages.
+ * Name order differs per backend (database collation vs. Java string order), so each
+ * implementation issues cursors tagged with its ordering and only seeks with cursors of
+ * that ordering; see {@link ProductSearchCursor}.
+ */
+public interface ProductTextSearchStrategy {
+
+    /**
+     * Search with offset pagination.
+     * @param searchText the text to search for
+     * @param limit maximum results to return
+     * @param offset number of results to skip
+     * @param needTotal whether to compute the total match count
+     * @return page of matching ProductModel objects with the total count (or UNKNOWN_TOTAL)
+     */
+    SearchPage<ProductModel> search(String searchText, int limit, int offset, boolean needTotal);
+
+    /**
+     * Search with keyset pagination.
+     * @param searchText the text to search for
+     * @param limit maximum results to return
+     * @param after position of the last row already returned, or null for the first page
+     * @return page of matching ProductModel objects with the cursor for the next page
+     * @throws IllegalArgumentException if the cursor belongs to an ordering this strategy cannot continue
+     */
+    SearchPage<ProductModel> search(String searchText, int limit, ProductSearchCursor after);
+}
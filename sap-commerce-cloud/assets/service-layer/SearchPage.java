@@ -0,0 +1,67 @@
+/*
+ * SearchPage.java
+ * One page of search results plus the information needed to fetch the next page.
+ * Used by services (with Models) and facades (with DTOs).
+ */
+package com.example.core.search;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page of search results.
+ *
+ * Carries what the client needs to render paging controls:
+ * - nextCursor in cursor mode
+ * - totalCount in offset mode, when requested ({@link #UNKNOWN_TOTAL} otherwise)
+ *
+ * @param <T> result type (ProductModel in services, ProductData in facades)
+ */
+public class SearchPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Total count value when the total was not computed (needTotal=false or cursor mode). */
+    public static final int UNKNOWN_TOTAL = -1;
+
+    private final List<T> results;
+    private final String nextCursor;
+    private final int totalCount;
+
+    public SearchPage(final List<T> results, final String nextCursor) {
+        this(results, nextCursor, UNKNOWN_TOTAL);
+    }
+
+    public SearchPage(final List<T> results, final String nextCursor, final int totalCount) {
+        this.results = results == null ? Collections.emptyList() : results;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    public static <T> SearchPage<T> empty() {
+        return new SearchPage<>(Collections.emptyList(), null, 0);
+    }
+
+    public List<T> getResults() {
+        return results;
+    }
+
+    /**
+     * @return opaque cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return total number of matches, or {@link #UNKNOWN_TOTAL} if it was not computed
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * StockAvailability.java
+ * Immutable snapshot of a product's available stock across warehouses.
+ * Produced by StockAvailabilityIndex.
+ */
+package com.example.core.stock;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Available stock for one product: total plus per-warehouse breakdown.
+ * Availability per warehouse is {@code available - reserved}, floored at zero; zero for stock
+ * levels marked forceOutOfStock. A product with a forceInStock stock level is in stock
+ * regardless of its amounts.
+ */
+public final class StockAvailability {
+
+    public static final StockAvailability NONE = new StockAvailability(0L, Collections.emptyMap(), false);
+
+    private final long total;
+    private final Map<String, Long> byWarehouse;
+    private final boolean forcedInStock;
+
+    public StockAvailability(final long total, final Map<String, Long> byWarehouse, final boolean forcedInStock) {
+        this.total = total;
+        this.byWarehouse = Collections.unmodifiableMap(byWarehouse);
+        this.forcedInStock = forcedInStock;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return warehouse code to available amount
+     */
+    public Map<String, Long> getByWarehouse() {
+        return byWarehouse;
+    }
+
+    /**
+     * @return true if at least one stock level is marked forceInStock
+     */
+    public boolean isForcedInStock() {
+        return forcedInStock;
+    }
+
+    public boolean isInStock() {
+        return forcedInStock || total > 0;
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * StockAvailabilityIndex.java
+ * In-memory, incrementally maintained index of available stock per product.
+ * Answers availability checks without querying the database.
+ */
+package com.example.core.stock;
+
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product code → available stock, aggregated over all warehouses.
+ *
+ * Lifecycle:
+ * - Built on context refresh by paging raw StockLevel rows by PK (no models are loaded)
+ * - Every StockLevel save or remove, on this or any other cluster node, arrives on the
+ *   platform entity invalidation topic; the PK is queued and the listener returns at once
+ * - A background thread re-reads queued rows every {@code refreshIntervalMillis}, one IN query
+ *   per {@code refreshBatchSize} PKs, and recomputes the owning products' totals. A stock feed
+ *   touching many rows therefore costs a few queries per interval, not one per row
+ * - {@link #isReady()} is false until the first build succeeds; callers fall back to StockService
+ *
+ * Rebuilds load into fresh maps and swap them in; readers keep the previous index meanwhile.
+ * Rows refreshed while a rebuild runs are re-read before the swap, so the new index is never
+ * older than the changes already applied to the old one.
+ *
+ * inStockStatus is honoured: forceOutOfStock levels count as zero, a forceInStock level
+ * makes the product in stock regardless of amounts (see {@link StockAvailability}).
+ *
+ * Reads are lock-free and return immutable snapshots. Refreshes are serialized on their own
+ * lock, not the rebuild's; a product's total is recomputed from its few stock levels, so each
+ * refresh is O(warehouses).
+ */
+public class StockAvailabilityIndex implements InvalidationListener, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockAvailabilityIndex.class);
+
+    private static final int DEFAULT_REBUILD_BATCH_SIZE = 10_000;
+    private static final int DEFAULT_REFRESH_BATCH_SIZE = 1000;
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 200L;
+
+    private static final String FORCE_IN_STOCK = "forceInStock";
+    private static final String FORCE_OUT_OF_STOCK = "forceOutOfStock";
+
+    private static final String STOCK_LEVEL_COLUMNS =
+        "SELECT {sl.pk}, {sl.productCode}, {w.code}, {sl.available}, {sl.reserved}, {st.code} " +
+        "FROM {StockLevel AS sl JOIN Warehouse AS w ON {sl.warehouse} = {w.pk} " +
+        "LEFT JOIN InStockStatus AS st ON {sl.inStockStatus} = {st.pk}} ";
+
+    private static final List<Class<?>> STOCK_LEVEL_RESULT_CLASSES =
+        Arrays.asList(Long.class, String.class, String.class, Integer.class, Integer.class, String.class);
+
+    private FlexibleSearchService flexibleSearchService;
+    private TypeService typeService;
+    private SessionService sessionService;
+    private UserService userService;
+    private int rebuildBatchSize = DEFAULT_REBUILD_BATCH_SIZE;
+    private int refreshBatchSize = DEFAULT_REFRESH_BATCH_SIZE;
+    private long refreshIntervalMillis = DEFAULT_REFRESH_INTERVAL_MILLIS;
+
+    private volatile Snapshot snapshot = new Snapshot();
+    private final Set<Long> pendingPks = ConcurrentHashMap.newKeySet();
+    // Guards writes to the snapshot and the swap; separate from rebuild() so refreshes never wait for a rebuild
+    private final Object writeLock = new Object();
+    // PKs refreshed while a rebuild is loading; null when no rebuild runs. Guarded by writeLock
+    private Set<Long> refreshedDuringRebuild;
+    private volatile Set<String> stockLevelTypeCodes = Collections.emptySet();
+    private volatile ScheduledExecutorService refresher;
+    private volatile boolean ready;
+
+    /**
+     * @param productCode the product code
+     * @return availability snapshot; {@link StockAvailability#NONE} if the product has no stock levels
+     */
+    public StockAvailability getAvailability(final String productCode) {
+        final StockAvailability availability = snapshot.availabilityByProduct.get(productCode);
+        return availability == null ? StockAvailability.NONE : availability;
+    }
+
+    public boolean isInStock(final String productCode) {
+        return getAvailability(productCode).isInStock();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reload every stock level into a fresh index and swap it in. Readers see the previous
+     * index until the swap; refreshes keep being applied to it meanwhile.
+     */
+    public synchronized void rebuild() {
+        final long start = System.currentTimeMillis();
+        stockLevelTypeCodes = resolveStockLevelTypeCodes();
+        synchronized (writeLock) {
+            refreshedDuringRebuild = new HashSet<>();
+        }
+
+        final Snapshot fresh = new Snapshot();
+        try {
+            long lastPk = 0L;
+            List<List<Object>> rows;
+            do {
+                final FlexibleSearchQuery query = new FlexibleSearchQuery(
+                        STOCK_LEVEL_COLUMNS + "WHERE {sl.pk} > ?lastPk ORDER BY {sl.pk} ASC");
+                query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+                query.setResultClassList(STOCK_LEVEL_RESULT_CLASSES);
+                query.setCount(rebuildBatchSize);
+                query.setNeedTotal(false);
+
+                final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+                rows = result.getResult();
+                for (final List<Object> row : rows) {
+                    lastPk = ((Long) row.get(0)).longValue();
+                    fresh.apply(lastPk, toLevel(row));
+                }
+            } while (rows.size() == rebuildBatchSize);
+
+            synchronized (writeLock) {
+                // A row refreshed during the load may have been read before its change; re-read it
+                final Set<Long> refreshed = refreshedDuringRebuild;
+                refreshedDuringRebuild = null;
+                final Map<Long, Level> current = loadLevels(refreshed);
+                for (final Long pk : refreshed) {
+                    fresh.apply(pk.longValue(), current.get(pk));
+                }
+                snapshot = fresh;
+            }
+        } finally {
+            synchronized (writeLock) {
+                refreshedDuringRebuild = null;
+            }
+        }
+
+        ready = true;
+        LOG.info("Stock availability index built: {} stock levels for {} products in {} ms",
+                fresh.levels.size(), fresh.availabilityByProduct.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        // Web contexts refresh too; build only once at startup
+        if (ready || refresher != null) {
+            return;
+        }
+        try {
+            InvalidationManager.getInstance()
+                    .getInvalidationTopic(new String[] { Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY })
+                    .addInvalidationListener(this);
+
+            final Tenant tenant = Registry.getCurrentTenant();
+            final ScheduledExecutorService executor =
+                    Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-index-"));
+            executor.scheduleWithFixedDelay(() -> refreshInContext(tenant),
+                    refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+            refresher = executor;
+
+            rebuild();
+        } catch (final RuntimeException e) {
+            LOG.warn("Could not build stock availability index, availability checks use StockService", e);
+        }
+    }
+
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdown();
+        }
+    }
+
+    @Override
+    public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+            final RemoteInvalidationSource remoteSrc) {
+        // Key layout: [HJMP, ENTITY, typeCode, PK]
+        if (key.length < 4 || !stockLevelTypeCodes.contains(String.valueOf(key[2]))) {
+            return;
+        }
+        // Resolved in batches by the refresher; never query on the invalidating thread
+        pendingPks.add(Long.valueOf(((PK) key[3]).getLongValue()));
+    }
+
+    private void refreshInContext(final Tenant tenant) {
+        if (pendingPks.isEmpty()) {
+            return;
+        }
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                userService.setCurrentUser(userService.getAdminUser());
+                refresh();
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final RuntimeException e) {
+            // Keep the refresher alive; failed PKs were re-queued
+            LOG.warn("Could not refresh stock availability index", e);
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    /**
+     * Re-read queued stock levels, {@code refreshBatchSize} PKs per query, and apply them.
+     */
+    private void refresh() {
+        final List<Long> batch = new ArrayList<>(refreshBatchSize);
+        final Iterator<Long> it = pendingPks.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            it.remove();
+            if (batch.size() == refreshBatchSize || !it.hasNext()) {
+                refreshBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void refreshBatch(final List<Long> pks) {
+        final Map<Long, Level> current;
+        try {
+            current = loadLevels(pks);
+        } catch (final RuntimeException e) {
+            pendingPks.addAll(pks);
+            throw e;
+        }
+        synchronized (writeLock) {
+            for (final Long pk : pks) {
+                // No row: the stock level was removed
+                snapshot.apply(pk.longValue(), current.get(pk));
+            }
+            if (refreshedDuringRebuild != null) {
+                refreshedDuringRebuild.addAll(pks);
+            }
+        }
+    }
+
+    private Map<Long, Level> loadLevels(final Collection<Long> pks) {
+        final Map<Long, Level> loaded = new HashMap<>();
+        final List<Long> all = new ArrayList<>(pks);
+        for (int from = 0; from < all.size(); from += refreshBatchSize) {
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(STOCK_LEVEL_COLUMNS + "WHERE {sl.pk} IN (?pks)");
+            query.addQueryParameter("pks", all.subList(from, Math.min(from + refreshBatchSize, all.size())));
+            query.setResultClassList(STOCK_LEVEL_RESULT_CLASSES);
+            // Must see the committed rows, not a cached pre-change result
+            query.setDisableCaching(true);
+
+            final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+            for (final List<Object> row : result.getResult()) {
+                loaded.put((Long) row.get(0), toLevel(row));
+            }
+        }
+        return loaded;
+    }
+
+    private static Level toLevel(final List<Object> row) {
+        final int available = row.get(3) == null ? 0 : ((Integer) row.get(3)).intValue();
+        final int reserved = row.get(4) == null ? 0 : ((Integer) row.get(4)).intValue();
+        final String status = (String) row.get(5);
+        final long amount = FORCE_OUT_OF_STOCK.equals(status) ? 0L : Math.max(0, available - reserved);
+        return new Level((String) row.get(1), (String) row.get(2), amount, FORCE_IN_STOCK.equals(status));
+    }
+
+    private Set<String> resolveStockLevelTypeCodes() {
+        final ComposedTypeModel type = typeService.getComposedTypeForClass(StockLevelModel.class);
+        final Set<String> typeCodes = new HashSet<>();
+        typeCodes.add(String.valueOf(type.getItemtypecode()));
+        for (final ComposedTypeModel subType : type.getAllSubTypes()) {
+            typeCodes.add(String.valueOf(subType.getItemtypecode()));
+        }
+        return typeCodes;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setTypeService(final TypeService typeService) {
+        this.typeService = typeService;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setRebuildBatchSize(final int rebuildBatchSize) {
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    public void setRefreshBatchSize(final int refreshBatchSize) {
+        this.refreshBatchSize = refreshBatchSize;
+    }
+
+    public void setRefreshIntervalMillis(final long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * One generation of the index. Rebuilds fill a new instance; refreshes mutate the current one.
+     */
+    private static final class Snapshot {
+        private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> levelsByProduct = new ConcurrentHashMap<>();
+        private final Map<String, StockAvailability> availabilityByProduct = new ConcurrentHashMap<>();
+
+        /**
+         * Replace (or remove, when level is null) one stock level and recompute affected products.
+         */
+        void apply(final long pk, final Level level) {
+            final Long key = Long.valueOf(pk);
+            final Level previous = level == null ? levels.remove(key) : levels.put(key, level);
+
+            if (previous != null && (level == null || !previous.productCode.equals(level.productCode))) {
+                final Set<Long> previousLevels = levelsByProduct.get(previous.productCode);
+                if (previousLevels != null) {
+                    previousLevels.remove(key);
+                }
+                recompute(previous.productCode);
+            }
+            if (level != null) {
+                levelsByProduct.computeIfAbsent(level.productCode, code -> new HashSet<>()).add(key);
+                recompute(level.productCode);
+            }
+        }
+
+        private void recompute(final String productCode) {
+            final Set<Long> productLevels = levelsByProduct.get(productCode);
+            if (productLevels == null || productLevels.isEmpty()) {
+                levelsByProduct.remove(productCode);
+                availabilityByProduct.remove(productCode);
+                return;
+            }
+
+            long total = 0L;
+            boolean forcedInStock = false;
+            final Map<String, Long> byWarehouse = new HashMap<>();
+            for (final Long levelPk : productLevels) {
+                final Level level = levels.get(levelPk);
+                total += level.amount;
+                forcedInStock |= level.forcedInStock;
+                byWarehouse.merge(level.warehouseCode, Long.valueOf(level.amount), Long::sum);
+            }
+            availabilityByProduct.put(productCode, new StockAvailability(total, byWarehouse, forcedInStock));
+        }
+    }
+
+    private static final class Level {
+        private final String productCode;
+        private final String warehouseCode;
+        private final long amount;
+        private final boolean forcedInStock;
+
+        Level(final String productCode, final String warehouseCode, final long amount, final boolean forcedInStock) {
+            this.productCode = productCode;
+            this.warehouseCode = warehouseCode;
+            this.amount = amount;
+            this.forcedInStock = forcedInStock;
+        }
+    }
+}
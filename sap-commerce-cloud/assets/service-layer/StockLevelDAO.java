@@ -0,0 +1,26 @@
+/*
+ * StockLevelDAO.java
+ * DAO interface for stock level data access operations.
+ */
+package com.example.core.daos;
+
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Data Access Object interface for StockLevel operations.
+ *
+ * Same rules as ProductDAO: no business logic, empty results instead of exceptions.
+ */
+public interface StockLevelDAO {
+
+    /**
+     * Find the stock levels of several products in one warehouse in as few queries as possible.
+     * @param productCodes the product codes
+     * @param warehouse the warehouse
+     * @return map of product code to StockLevelModel; products without a stock level are absent
+     */
+    Map<String, StockLevelModel> findByProductCodes(Collection<String> productCodes, WarehouseModel warehouse);
+}
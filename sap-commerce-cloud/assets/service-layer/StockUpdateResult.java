@@ -0,0 +1,69 @@
+/*
+ * StockUpdateResult.java
+ * Outcome of a bulk stock update: counts plus the reason for every rejected item.
+ */
+package com.example.core.stock;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of ProductService.updateProductStocks.
+ * Every input code ends up in exactly one bucket: created, updated, unchanged or failed.
+ */
+public class StockUpdateResult {
+
+    private int createdCount;
+    private int updatedCount;
+    private int unchangedCount;
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    public void addCreated(final int count) {
+        createdCount += count;
+    }
+
+    public void addUpdated(final int count) {
+        updatedCount += count;
+    }
+
+    public void addUnchanged(final int count) {
+        unchangedCount += count;
+    }
+
+    public void addFailure(final String productCode, final String reason) {
+        failures.put(productCode, reason);
+    }
+
+    /**
+     * @return number of stock levels created because the product had none in the warehouse
+     */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * @return number of existing stock levels saved with a new quantity
+     */
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    /**
+     * @return number of existing stock levels that already had the requested quantity (not saved)
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * @return product code to failure reason, in input order
+     */
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * TrigramProductTextSearchStrategy.java
+ * Text search strategy answering queries from an in-memory trigram index.
+ * The index is built at startup and kept current from entity invalidations (cluster-wide).
+ */
+package com.example.core.search.impl;
+
+import com.example.core.search.ProductSearchCursor;
+import com.example.core.search.ProductTextSearchStrategy;
+import com.example.core.search.SearchPage;
+
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import de.hybris.platform.servicelayer.user.UserService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trigram-index backed product text search.
+ *
+ * Lifecycle:
+ * - On context refresh the index is built by paging (pk, name, catalogVersion) rows by PK; no models are loaded
+ * - Every Product (or subtype) save or remove, on this or any other cluster node, arrives on the
+ *   platform entity invalidation topic; the PK is queued and the listener returns at once
+ * - A background thread re-reads queued products every {@code refreshIntervalMillis}, one IN query
+ *   per {@code refreshBatchSize} PKs. A product that is gone, or no longer in the indexed catalog
+ *   version, is removed from the index
+ * - Until the first build succeeds, all searches go to the fallback strategy (LIKE query)
+ *
+ * Hits are filtered by the session catalog versions, as the catalog version search restriction
+ * does for the fallback. Other search restrictions are not applied, so only use this strategy
+ * where none are defined for Product.
+ *
+ * Searches never query the database; result models are resolved by PK through the model cache.
+ *
+ * Limitations:
+ * - One language is indexed; {@code catalogId}/{@code catalogVersionName} narrow the index to one
+ *   catalog version to save memory
+ */
+public class TrigramProductTextSearchStrategy
+        implements ProductTextSearchStrategy, InvalidationListener, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrigramProductTextSearchStrategy.class);
+
+    private static final int DEFAULT_REBUILD_BATCH_SIZE = 5000;
+    private static final int DEFAULT_REFRESH_BATCH_SIZE = 1000;
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 200L;
+
+    private static final List<Class<?>> NAME_RESULT_CLASSES = Arrays.asList(Long.class, String.class, Long.class);
+
+    private FlexibleSearchService flexibleSearchService;
+    private ModelService modelService;
+    private TypeService typeService;
+    private CatalogVersionService catalogVersionService;
+    private SessionService sessionService;
+    private UserService userService;
+    private ProductTextSearchStrategy fallbackStrategy;
+
+    private String indexLanguage = "en";
+    private String catalogId;
+    private String catalogVersionName;
+    private int rebuildBatchSize = DEFAULT_REBUILD_BATCH_SIZE;
+    private int refreshBatchSize = DEFAULT_REFRESH_BATCH_SIZE;
+    private long refreshIntervalMillis = DEFAULT_REFRESH_INTERVAL_MILLIS;
+
+    private volatile ProductNameTrigramIndex index;
+    private final Set<Long> pendingPks = ConcurrentHashMap.newKeySet();
+    // Guards refreshes and the swap; separate from rebuild() so refreshes never wait for a rebuild
+    private final Object writeLock = new Object();
+    // PKs refreshed while a rebuild is loading; null when no rebuild runs. Guarded by writeLock
+    private Set<Long> refreshedDuringRebuild;
+    private volatile Set<String> productTypeCodes = Collections.emptySet();
+    private volatile ScheduledExecutorService refresher;
+
+    @Override
+    public SearchPage<ProductModel> search(final String searchText, final int limit, final int offset,
+            final boolean needTotal) {
+        final ProductNameTrigramIndex current = index;
+        if (current == null) {
+            return fallbackStrategy.search(searchText, limit, offset, needTotal);
+        }
+
+        // Only the rows up to the end of the page are selected; counting is a separate pass
+        final Set<Long> catalogVersionPks = sessionCatalogVersionPks();
+        final int end = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        final List<ProductNameTrigramIndex.Entry> matches = current.find(searchText, null, end, catalogVersionPks);
+        final int total = needTotal ? current.count(searchText, catalogVersionPks) : SearchPage.UNKNOWN_TOTAL;
+        return new SearchPage<>(toModels(matches, offset, limit), null, total);
+    }
+
+    @Override
+    public SearchPage<ProductModel> search(final String searchText, final int limit, final ProductSearchCursor after) {
+        final ProductNameTrigramIndex current = index;
+        if (current == null
+                || (after != null && !ProductSearchCursor.ORDER_NAME_INDEX.equals(after.getOrdering()))) {
+            // Index not built yet, or paging started on the fallback: continue in the fallback's order
+            return fallbackStrategy.search(searchText, limit, after);
+        }
+
+        final ProductNameTrigramIndex.Entry probe = after == null ? null
+                : new ProductNameTrigramIndex.Entry(after.getLastPk().getLongValue(), after.getLastName());
+        // One extra entry tells whether another page exists
+        final List<ProductNameTrigramIndex.Entry> matches =
+                current.find(searchText, probe, limit + 1, sessionCatalogVersionPks());
+        if (matches.size() <= limit) {
+            return new SearchPage<>(toModels(matches, 0, limit), null);
+        }
+        final ProductNameTrigramIndex.Entry last = matches.get(limit - 1);
+        final String nextCursor = ProductSearchCursor.after(ProductSearchCursor.ORDER_NAME_INDEX, last.getName(),
+                PK.fromLong(last.getPk())).encode();
+        return new SearchPage<>(toModels(matches, 0, limit), nextCursor);
+    }
+
+    /**
+     * Build a fresh index and swap it in. Searches keep using the old index
+     * (or the fallback) until the new one is complete; refreshes keep being applied to it meanwhile.
+     */
+    public synchronized void rebuild() {
+        final long start = System.currentTimeMillis();
+        productTypeCodes = resolveProductTypeCodes();
+        synchronized (writeLock) {
+            refreshedDuringRebuild = new HashSet<>();
+        }
+
+        final ProductNameTrigramIndex building = new ProductNameTrigramIndex();
+        try {
+            long lastPk = 0L;
+            int loaded;
+            do {
+                final List<List<Object>> rows = loadNames(lastPk);
+                for (final List<Object> row : rows) {
+                    lastPk = ((Long) row.get(0)).longValue();
+                    put(building, row);
+                }
+                loaded = rows.size();
+            } while (loaded == rebuildBatchSize);
+
+            synchronized (writeLock) {
+                // A product refreshed during the load may have been read before its change; re-read it
+                final Set<Long> refreshed = refreshedDuringRebuild;
+                refreshedDuringRebuild = null;
+                applyCurrent(building, refreshed);
+                index = building;
+            }
+            LOG.info("Product name index built: {} products in {} ms",
+                    building.size(), System.currentTimeMillis() - start);
+        } finally {
+            synchronized (writeLock) {
+                refreshedDuringRebuild = null;
+            }
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        // Web contexts refresh too; build only once at startup
+        if (index != null || refresher != null) {
+            return;
+        }
+        try {
+            InvalidationManager.getInstance()
+                    .getInvalidationTopic(new String[] { Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY })
+                    .addInvalidationListener(this);
+
+            final Tenant tenant = Registry.getCurrentTenant();
+            final ScheduledExecutorService executor =
+                    Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("product-name-index-"));
+            executor.scheduleWithFixedDelay(() -> refreshInContext(tenant),
+                    refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+            refresher = executor;
+
+            rebuild();
+        } catch (final RuntimeException e) {
+            // e.g. system not initialized yet; searches keep using the fallback strategy
+            LOG.warn("Could not build product name index, using fallback text search", e);
+        }
+    }
+
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdown();
+        }
+    }
+
+    @Override
+    public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+            final RemoteInvalidationSource remoteSrc) {
+        // Key layout: [HJMP, ENTITY, typeCode, PK]
+        if (key.length < 4 || !productTypeCodes.contains(String.valueOf(key[2]))) {
+            return;
+        }
+        // Resolved in batches by the refresher; never query on the invalidating thread
+        pendingPks.add(Long.valueOf(((PK) key[3]).getLongValue()));
+    }
+
+    private void refreshInContext(final Tenant tenant) {
+        if (pendingPks.isEmpty()) {
+            return;
+        }
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                userService.setCurrentUser(userService.getAdminUser());
+                refresh();
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final RuntimeException e) {
+            // Keep the refresher alive; failed PKs were re-queued
+            LOG.warn("Could not refresh product name index", e);
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    /**
+     * Re-read queued products, {@code refreshBatchSize} PKs per query, and apply them.
+     */
+    private void refresh() {
+        final List<Long> batch = new ArrayList<>(refreshBatchSize);
+        final Iterator<Long> it = pendingPks.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            it.remove();
+            if (batch.size() == refreshBatchSize || !it.hasNext()) {
+                refreshBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void refreshBatch(final List<Long> pks) {
+        final Map<Long, List<Object>> current;
+        try {
+            current = loadNames(pks);
+        } catch (final RuntimeException e) {
+            pendingPks.addAll(pks);
+            throw e;
+        }
+        synchronized (writeLock) {
+            final ProductNameTrigramIndex live = index;
+            if (live != null) {
+                apply(live, pks, current);
+            }
+            if (refreshedDuringRebuild != null) {
+                refreshedDuringRebuild.addAll(pks);
+            }
+        }
+    }
+
+    private void applyCurrent(final ProductNameTrigramIndex target, final Collection<Long> pks) {
+        final List<Long> all = new ArrayList<>(pks);
+        for (int from = 0; from < all.size(); from += refreshBatchSize) {
+            final List<Long> batch = all.subList(from, Math.min(from + refreshBatchSize, all.size()));
+            apply(target, batch, loadNames(batch));
+        }
+    }
+
+    private static void apply(final ProductNameTrigramIndex target, final Collection<Long> pks,
+            final Map<Long, List<Object>> current) {
+        for (final Long pk : pks) {
+            final List<Object> row = current.get(pk);
+            if (row == null) {
+                // Removed, or no longer in the indexed catalog version
+                target.remove(pk.longValue());
+            } else {
+                put(target, row);
+            }
+        }
+    }
+
+    private static void put(final ProductNameTrigramIndex target, final List<Object> row) {
+        final Long catalogVersionPk = (Long) row.get(2);
+        target.put(((Long) row.get(0)).longValue(), (String) row.get(1),
+                catalogVersionPk == null ? 0L : catalogVersionPk.longValue());
+    }
+
+    private List<List<Object>> loadNames(final long lastPk) {
+        // Raw (pk, name, catalogVersion) columns and keyset paging: the index never needs full models
+        final FlexibleSearchQuery query = namesQuery("{p.pk} > ?lastPk", " ORDER BY {p.pk} ASC");
+        query.addQueryParameter("lastPk", Long.valueOf(lastPk));
+        query.setCount(rebuildBatchSize);
+        query.setNeedTotal(false);
+
+        final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+        return result.getResult();
+    }
+
+    private Map<Long, List<Object>> loadNames(final Collection<Long> pks) {
+        final FlexibleSearchQuery query = namesQuery("{p.pk} IN (?pks)", "");
+        query.addQueryParameter("pks", pks);
+        // Must see the committed rows, not a cached pre-change result
+        query.setDisableCaching(true);
+
+        final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+        final Map<Long, List<Object>> rows = new HashMap<>();
+        for (final List<Object> row : result.getResult()) {
+            rows.put((Long) row.get(0), row);
+        }
+        return rows;
+    }
+
+    private FlexibleSearchQuery namesQuery(final String condition, final String orderBy) {
+        final StringBuilder queryString = new StringBuilder(
+                "SELECT {p.pk}, {p.name[" + indexLanguage + "]}, {p.catalogVersion} FROM {Product AS p");
+        if (catalogId != null) {
+            queryString.append(" JOIN CatalogVersion AS cv ON {p.catalogVersion} = {cv.pk}")
+                    .append(" JOIN Catalog AS c ON {cv.catalog} = {c.pk}");
+        }
+        queryString.append("} WHERE ").append(condition);
+        if (catalogId != null) {
+            queryString.append(" AND {c.id} = ?catalogId AND {cv.version} = ?versionName");
+        }
+        queryString.append(orderBy);
+
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString.toString());
+        if (catalogId != null) {
+            query.addQueryParameter("catalogId", catalogId);
+            query.addQueryParameter("versionName", catalogVersionName);
+        }
+        query.setResultClassList(NAME_RESULT_CLASSES);
+        return query;
+    }
+
+    /**
+     * @return PKs of the session catalog versions, or null (no filter) if the session has none,
+     *         matching the catalog version search restriction
+     */
+    private Set<Long> sessionCatalogVersionPks() {
+        final Collection<CatalogVersionModel> catalogVersions = catalogVersionService.getSessionCatalogVersions();
+        if (catalogVersions == null || catalogVersions.isEmpty()) {
+            return null;
+        }
+        final Set<Long> pks = new HashSet<>();
+        for (final CatalogVersionModel catalogVersion : catalogVersions) {
+            pks.add(Long.valueOf(catalogVersion.getPk().getLongValue()));
+        }
+        return pks;
+    }
+
+    private List<ProductModel> toModels(final List<ProductNameTrigramIndex.Entry> matches, final int from,
+            final int limit) {
+        final List<ProductModel> products = new ArrayList<>(Math.min(limit, Math.max(0, matches.size() - from)));
+        for (int i = from; i < matches.size() && products.size() < limit; i++) {
+            try {
+                products.add(modelService.get(PK.fromLong(matches.get(i).getPk())));
+            } catch (final ModelLoadingException e) {
+                // Removed, and its invalidation not yet applied to this index
+                LOG.debug("Skipping stale index entry {}", matches.get(i).getPk());
+            }
+        }
+        return products;
+    }
+
+    private Set<String> resolveProductTypeCodes() {
+        // Product and all subtypes (e.g. VariantProduct) share the index
+        final ComposedTypeModel productType = typeService.getComposedTypeForClass(ProductModel.class);
+        final Set<String> typeCodes = new HashSet<>();
+        typeCodes.add(String.valueOf(productType.getItemtypecode()));
+        for (final ComposedTypeModel subType : productType.getAllSubTypes()) {
+            typeCodes.add(String.valueOf(subType.getItemtypecode()));
+        }
+        return typeCodes;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setModelService(final ModelService modelService) {
+        this.modelService = modelService;
+    }
+
+    public void setTypeService(final TypeService typeService) {
+        this.typeService = typeService;
+    }
+
+    public void setCatalogVersionService(final CatalogVersionService catalogVersionService) {
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setFallbackStrategy(final ProductTextSearchStrategy fallbackStrategy) {
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    public void setIndexLanguage(final String indexLanguage) {
+        this.indexLanguage = indexLanguage;
+    }
+
+    public void setCatalogId(final String catalogId) {
+        this.catalogId = catalogId;
+    }
+
+    public void setCatalogVersionName(final String catalogVersionName) {
+        this.catalogVersionName = catalogVersionName;
+    }
+
+    public void setRebuildBatchSize(final int rebuildBatchSize) {
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    public void setRefreshBatchSize(final int refreshBatchSize) {
+        this.refreshBatchSize = refreshBatchSize;
+    }
+
+    public void setRefreshIntervalMillis(final long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+}
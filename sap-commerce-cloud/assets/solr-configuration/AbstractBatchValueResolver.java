@@ -0,0 +1,156 @@
+package com.example.search.providers;
+
+import de.hybris.platform.c2l.model.LanguageModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.solrfacetsearch.config.IndexedProperty;
+import de.hybris.platform.solrfacetsearch.config.exceptions.FieldValueProviderException;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerBatchContext;
+import de.hybris.platform.solrfacetsearch.indexer.spi.InputDocument;
+import de.hybris.platform.solrfacetsearch.provider.ValueResolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Batch-aware value resolver base class.
+ *
+ * The indexer calls a value resolver once per product. Resolving related data there
+ * (categories, prices, custom relations) lazily loads it product by product. This base class
+ * instead:
+ * - Calls {@link #prefetch} once per indexer batch with all products of the batch, so the
+ *   relations can be loaded with one query; the result is kept in the batch context
+ * - Offers {@link #getOperationCached} for values shared across batches (e.g. category names),
+ *   cached for the duration of the indexing operation in an IndexOperationCache
+ * - Resolves localized properties once per index language
+ *
+ * Register as a Spring bean and reference it as fieldValueProvider in SolrIndexedProperty ImpEx.
+ * Batches may run on several threads; per-batch data is thread-confined, the operation
+ * cache is thread-safe.
+ *
+ * @param <D> prefetched data per product
+ */
+public abstract class AbstractBatchValueResolver<D> implements ValueResolver<ProductModel> {
+
+    // Cached for keys the loader returned no value for, so they are not loaded again
+    private static final Object NO_VALUE = new Object();
+
+    private final String batchDataAttribute = getClass().getName() + ".batchData";
+
+    private IndexOperationCache indexOperationCache;
+
+    @Override
+    public void resolve(final InputDocument document, final IndexerBatchContext batchContext,
+            final Collection<IndexedProperty> indexedProperties, final ProductModel product)
+            throws FieldValueProviderException {
+        final D data = getBatchData(batchContext).get(product.getPk());
+
+        for (final IndexedProperty indexedProperty : indexedProperties) {
+            if (indexedProperty.isLocalized()) {
+                for (final LanguageModel language : batchContext.getFacetSearchConfig().getIndexConfig().getLanguages()) {
+                    addFieldValue(document, indexedProperty, language.getIsocode(),
+                            resolveValue(product, data, indexedProperty, language.getIsocode(), batchContext));
+                }
+            } else {
+                addFieldValue(document, indexedProperty, null,
+                        resolveValue(product, data, indexedProperty, null, batchContext));
+            }
+        }
+    }
+
+    /**
+     * Load whatever the products of one batch need, ideally in one query.
+     * @param products all products of the batch
+     * @param batchContext the batch
+     * @return data per product PK; products without data may be absent
+     */
+    protected abstract Map<PK, D> prefetch(List<ProductModel> products, IndexerBatchContext batchContext);
+
+    /**
+     * Compute the value of one property for one product.
+     * @param product the product
+     * @param data what {@link #prefetch} returned for the product, or null
+     * @param indexedProperty the property
+     * @param languageIsocode index language for localized properties, otherwise null
+     * @param batchContext the batch
+     * @return value, collection of values, or null to index nothing
+     */
+    protected abstract Object resolveValue(ProductModel product, D data, IndexedProperty indexedProperty,
+            String languageIsocode, IndexerBatchContext batchContext) throws FieldValueProviderException;
+
+    /**
+     * Look up values in the operation-wide cache, loading the missing ones with one call.
+     * @param batchContext the batch
+     * @param namespace cache namespace, e.g. "categoryNames:en"
+     * @param keys keys needed
+     * @param loader loads values for the keys not cached yet; keys without a value may be left out
+     *     of its result and are then cached as absent
+     * @return values for the keys that have one
+     */
+    @SuppressWarnings("unchecked")
+    protected <K, V> Map<K, V> getOperationCached(final IndexerBatchContext batchContext, final String namespace,
+            final Collection<K> keys, final Function<Collection<K>, Map<K, V>> loader) {
+        final Map<Object, Object> cache = indexOperationCache.getCache(batchContext.getIndexOperationId(), namespace);
+        final Map<K, V> values = new HashMap<>(keys.size());
+        final List<K> missing = new ArrayList<>();
+        for (final K key : keys) {
+            final Object value = cache.get(key);
+            if (value == null) {
+                missing.add(key);
+            } else if (value != NO_VALUE) {
+                values.put(key, (V) value);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Two batches may load the same key concurrently; both get the same value, last write wins
+            final Map<K, V> loaded = loader.apply(missing);
+            for (final K key : missing) {
+                final V value = loaded.get(key);
+                cache.put(key, value == null ? NO_VALUE : value);
+            }
+            values.putAll(loaded);
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<PK, D> getBatchData(final IndexerBatchContext batchContext) {
+        // Called for every product of the batch; prefetch runs for the first one only
+        Map<PK, D> batchData = (Map<PK, D>) batchContext.getAttributes().get(batchDataAttribute);
+        if (batchData == null) {
+            final List<ProductModel> products = new ArrayList<>();
+            for (final ItemModel item : batchContext.getItems()) {
+                if (item instanceof ProductModel) {
+                    products.add((ProductModel) item);
+                }
+            }
+            batchData = products.isEmpty() ? new HashMap<>() : prefetch(products, batchContext);
+            batchContext.getAttributes().put(batchDataAttribute, batchData);
+        }
+        return batchData;
+    }
+
+    private static void addFieldValue(final InputDocument document, final IndexedProperty indexedProperty,
+            final String qualifier, final Object value) throws FieldValueProviderException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Collection) {
+            for (final Object element : (Collection<?>) value) {
+                document.addField(indexedProperty, element, qualifier);
+            }
+        } else {
+            document.addField(indexedProperty, value, qualifier);
+        }
+    }
+
+    // Setter injection
+    public void setIndexOperationCache(final IndexOperationCache indexOperationCache) {
+        this.indexOperationCache = indexOperationCache;
+    }
+}
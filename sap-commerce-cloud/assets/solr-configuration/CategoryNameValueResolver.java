@@ -0,0 +1,100 @@
+package com.example.search.providers;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.solrfacetsearch.config.IndexedProperty;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerBatchContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes the names of a product's direct categories.
+ *
+ * Example use of AbstractBatchValueResolver:
+ * - One query per batch loads the category PKs of all products in the batch
+ * - Category names are loaded once per language for the whole index operation;
+ *   later batches only query categories they have not seen yet; categories without a name in
+ *   a language are remembered as such and not queried again
+ */
+public class CategoryNameValueResolver extends AbstractBatchValueResolver<List<PK>> {
+
+    private static final Pattern ISOCODE = Pattern.compile("[A-Za-z_]+");
+
+    private FlexibleSearchService flexibleSearchService;
+
+    @Override
+    protected Map<PK, List<PK>> prefetch(final List<ProductModel> products, final IndexerBatchContext batchContext) {
+        final List<PK> productPks = new ArrayList<>(products.size());
+        for (final ProductModel product : products) {
+            productPks.add(product.getPk());
+        }
+
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(
+                "SELECT {rel.target}, {rel.source} FROM {CategoryProductRelation AS rel} " +
+                "WHERE {rel.target} IN (?products)");
+        query.addQueryParameter("products", productPks);
+        query.setResultClassList(Arrays.asList(PK.class, PK.class));
+        query.setNeedTotal(false);
+
+        final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+        final Map<PK, List<PK>> categoriesByProduct = new HashMap<>(products.size());
+        for (final List<Object> row : result.getResult()) {
+            categoriesByProduct.computeIfAbsent((PK) row.get(0), pk -> new ArrayList<>()).add((PK) row.get(1));
+        }
+        return categoriesByProduct;
+    }
+
+    @Override
+    protected Object resolveValue(final ProductModel product, final List<PK> categoryPks,
+            final IndexedProperty indexedProperty, final String languageIsocode, final IndexerBatchContext batchContext) {
+        if (categoryPks == null || languageIsocode == null) {
+            return null;
+        }
+        final Map<PK, String> names = getOperationCached(batchContext, "categoryNames:" + languageIsocode,
+                categoryPks, pks -> loadCategoryNames(pks, languageIsocode));
+
+        final List<String> values = new ArrayList<>(categoryPks.size());
+        for (final PK categoryPk : categoryPks) {
+            final String name = names.get(categoryPk);
+            if (name != null) {
+                values.add(name);
+            }
+        }
+        return values;
+    }
+
+    private Map<PK, String> loadCategoryNames(final Collection<PK> categoryPks, final String languageIsocode) {
+        // The language is part of the column reference and cannot be a query parameter
+        if (!ISOCODE.matcher(languageIsocode).matches()) {
+            throw new IllegalArgumentException("Invalid language isocode: " + languageIsocode);
+        }
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(
+                "SELECT {pk}, {name[" + languageIsocode + "]} FROM {Category} WHERE {pk} IN (?categories)");
+        query.addQueryParameter("categories", categoryPks);
+        query.setResultClassList(Arrays.asList(PK.class, String.class));
+        query.setNeedTotal(false);
+
+        final SearchResult<List<Object>> result = flexibleSearchService.search(query);
+        final Map<PK, String> names = new HashMap<>(categoryPks.size());
+        for (final List<Object> row : result.getResult()) {
+            if (row.get(1) != null) {
+                names.put((PK) row.get(0), (String) row.get(1));
+            }
+        }
+        return names;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+}
@@ -21,6 +21,10 @@ import java.util.List;
  *
  * For localized fields, use {@link de.hybris.platform.solrfacetsearch.provider.impl.AbstractLocalizedValueResolver}
  * or check the locale in the IndexConfig.
+ *
+ * This provider is called once per product and property. If the value needs related
+ * models (categories, prices, custom relations), extend AbstractBatchValueResolver
+ * instead: it prefetches them once per indexer batch (see CategoryNameValueResolver).
  */
 public class CustomValueProvider extends AbstractPropertyFieldValueProvider implements FieldValueProvider {
 
@@ -0,0 +1,213 @@
+package com.example.search.indexer;
+
+import de.hybris.platform.solrfacetsearch.config.FacetSearchConfig;
+import de.hybris.platform.solrfacetsearch.config.IndexOperation;
+import de.hybris.platform.solrfacetsearch.config.IndexedType;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerBatchContext;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerBatchContextFactory;
+import de.hybris.platform.solrfacetsearch.indexer.exceptions.ExporterException;
+import de.hybris.platform.solrfacetsearch.indexer.spi.Exporter;
+import de.hybris.platform.solrfacetsearch.solr.Index;
+import de.hybris.platform.solrfacetsearch.solr.SolrSearchProvider;
+import de.hybris.platform.solrfacetsearch.solr.SolrSearchProviderFactory;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Exporter decorator that skips documents whose content has not changed since they were last sent.
+ *
+ * Per document a 64-bit fingerprint of all field values is computed (field names sorted,
+ * multi-values sorted, volatile fields such as indexOperationId ignored) and stored with the
+ * document in {@code fingerprintField}:
+ * - Update: the stored fingerprints of the batch are read back from the index with one
+ *   real-time get; documents whose fingerprint matches are not sent
+ * - Full: every document is sent (the new index must be complete), with its fingerprint
+ * - Partial update: sent as usual; the stored fingerprint is removed, because the document no
+ *   longer holds exactly what was fingerprinted, so the next update sends it in full
+ * - Delete: the fingerprint goes with the document
+ *
+ * The fingerprint lives in the shared index, not on this node: a change sent by another node
+ * (its update run, the near-real-time listener) replaces or clears it, so no node can skip a
+ * document based on an outdated view. If the fingerprints cannot be read, everything is sent.
+ *
+ * The field must be stored, e.g. a {@code *_long} dynamic field of the default schema.
+ * Documents are still built, so value resolution cost stays; Solr write load drops to the
+ * changed documents.
+ */
+public class FingerprintExporter implements Exporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FingerprintExporter.class);
+
+    private static final String ID_FIELD = "id";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Exporter delegate;
+    private SolrSearchProviderFactory solrSearchProviderFactory;
+    private IndexerBatchContextFactory<? extends IndexerBatchContext> indexerBatchContextFactory;
+    private String fingerprintField = "fingerprint_long";
+    private Set<String> ignoredFields = new HashSet<>(Arrays.asList("indexOperationId", "_version_"));
+
+    @Override
+    public void exportToUpdateIndex(final Collection<SolrInputDocument> documents, final FacetSearchConfig facetSearchConfig,
+            final IndexedType indexedType) throws ExporterException {
+        final IndexerBatchContext batchContext = indexerBatchContextFactory.getContext();
+        final IndexOperation operation = batchContext == null ? null : batchContext.getIndexOperation();
+
+        if (operation == IndexOperation.PARTIAL_UPDATE) {
+            for (final SolrInputDocument document : documents) {
+                // Atomic update: remove the field, the rest of the document is kept
+                document.setField(fingerprintField, Collections.singletonMap("set", null));
+            }
+            delegate.exportToUpdateIndex(documents, facetSearchConfig, indexedType);
+        } else if (operation == IndexOperation.UPDATE) {
+            final Map<String, Long> stored = loadFingerprints(documents, facetSearchConfig, indexedType, batchContext);
+            final List<SolrInputDocument> changed = new ArrayList<>(documents.size());
+            for (final SolrInputDocument document : documents) {
+                final long fingerprint = fingerprint(document);
+                final Long previous = stored.get(String.valueOf(document.getFieldValue(ID_FIELD)));
+                if (previous == null || previous.longValue() != fingerprint) {
+                    document.setField(fingerprintField, Long.valueOf(fingerprint));
+                    changed.add(document);
+                }
+            }
+            if (!changed.isEmpty()) {
+                delegate.exportToUpdateIndex(changed, facetSearchConfig, indexedType);
+            }
+            LOG.debug("Sent {} of {} documents, {} unchanged", changed.size(), documents.size(),
+                    documents.size() - changed.size());
+        } else {
+            for (final SolrInputDocument document : documents) {
+                document.setField(fingerprintField, Long.valueOf(fingerprint(document)));
+            }
+            delegate.exportToUpdateIndex(documents, facetSearchConfig, indexedType);
+        }
+    }
+
+    @Override
+    public void exportToDeleteFromIndex(final Collection<String> idsToDelete, final FacetSearchConfig facetSearchConfig,
+            final IndexedType indexedType) throws ExporterException {
+        delegate.exportToDeleteFromIndex(idsToDelete, facetSearchConfig, indexedType);
+    }
+
+    /**
+     * Read the stored fingerprints of the documents with one real-time get, which also sees
+     * documents not yet committed.
+     * @return document id to fingerprint; empty if they cannot be read, so everything is sent
+     */
+    private Map<String, Long> loadFingerprints(final Collection<SolrInputDocument> documents,
+            final FacetSearchConfig facetSearchConfig, final IndexedType indexedType,
+            final IndexerBatchContext batchContext) {
+        final List<String> ids = new ArrayList<>(documents.size());
+        for (final SolrInputDocument document : documents) {
+            final Object id = document.getFieldValue(ID_FIELD);
+            if (id != null) {
+                ids.add(id.toString());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set("fl", ID_FIELD, fingerprintField);
+        final Map<String, Long> fingerprints = new HashMap<>(ids.size());
+        try {
+            final SolrSearchProvider solrSearchProvider =
+                    solrSearchProviderFactory.getSearchProvider(facetSearchConfig, indexedType);
+            final Index index = batchContext.getIndex();
+            try (SolrClient solrClient = solrSearchProvider.getClient(index)) {
+                for (final SolrDocument stored : solrClient.getById(index.getName(), ids, params)) {
+                    final Object fingerprint = stored.getFirstValue(fingerprintField);
+                    if (fingerprint instanceof Number) {
+                        fingerprints.put(String.valueOf(stored.getFirstValue(ID_FIELD)),
+                                Long.valueOf(((Number) fingerprint).longValue()));
+                    }
+                }
+            }
+        } catch (final Exception e) {
+            LOG.warn("Could not read stored fingerprints, sending all {} documents", ids.size(), e);
+            return Collections.emptyMap();
+        }
+        return fingerprints;
+    }
+
+    /**
+     * FNV-1a over field names and values. Field and value order do not matter; resolvers that
+     * collect values from unordered sets would otherwise change the fingerprint on every run.
+     */
+    private long fingerprint(final SolrInputDocument document) {
+        long hash = FNV_OFFSET;
+        for (final String field : new TreeSet<>(document.getFieldNames())) {
+            if (ignoredFields.contains(field) || field.equals(fingerprintField)) {
+                continue;
+            }
+            hash = hash(hash, field);
+            final Collection<Object> values = document.getFieldValues(field);
+            if (values == null) {
+                continue;
+            }
+            final List<String> sorted = new ArrayList<>(values.size());
+            for (final Object value : values) {
+                sorted.add(String.valueOf(value));
+            }
+            sorted.sort(null);
+            for (final String value : sorted) {
+                hash = hash(hash, value);
+            }
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        // Separator, so "ab","c" and "a","bc" differ
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+
+    // Setter injection
+    public void setDelegate(final Exporter delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setSolrSearchProviderFactory(final SolrSearchProviderFactory solrSearchProviderFactory) {
+        this.solrSearchProviderFactory = solrSearchProviderFactory;
+    }
+
+    public void setIndexerBatchContextFactory(
+            final IndexerBatchContextFactory<? extends IndexerBatchContext> indexerBatchContextFactory) {
+        this.indexerBatchContextFactory = indexerBatchContextFactory;
+    }
+
+    /**
+     * @param fingerprintField stored long field holding the fingerprint, e.g. fingerprint_long
+     */
+    public void setFingerprintField(final String fingerprintField) {
+        this.fingerprintField = fingerprintField;
+    }
+
+    public void setIgnoredFields(final Set<String> ignoredFields) {
+        this.ignoredFields = ignoredFields;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.search.providers;
+
+import de.hybris.platform.solrfacetsearch.indexer.IndexerContext;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values shared between batches of one indexing operation, e.g. category names that
+ * thousands of products refer to. Dropped when the operation ends, so an index run
+ * never sees data cached by the previous one.
+ *
+ * Register as an IndexerListener (see solr-spring.xml) so entries are released.
+ */
+public class IndexOperationCache implements IndexerListener {
+
+    private final Map<Long, Map<String, Map<Object, Object>>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param indexOperationId the running operation
+     * @param namespace separates unrelated values, e.g. "categoryNames:en"
+     * @return thread-safe cache for the operation and namespace
+     */
+    public Map<Object, Object> getCache(final long indexOperationId, final String namespace) {
+        return caches.computeIfAbsent(Long.valueOf(indexOperationId), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(namespace, n -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void beforeIndex(final IndexerContext context) {
+        // Created lazily on first use
+    }
+
+    @Override
+    public void afterIndex(final IndexerContext context) {
+        caches.remove(Long.valueOf(context.getIndexOperationId()));
+    }
+
+    @Override
+    public void afterIndexError(final IndexerContext context) {
+        caches.remove(Long.valueOf(context.getIndexOperationId()));
+    }
+}
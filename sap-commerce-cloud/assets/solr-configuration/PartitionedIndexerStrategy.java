@@ -0,0 +1,371 @@
+package com.example.search.indexer;
+
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.solrfacetsearch.config.IndexConfig;
+import de.hybris.platform.solrfacetsearch.config.IndexOperation;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerContext;
+import de.hybris.platform.solrfacetsearch.indexer.exceptions.IndexerException;
+import de.hybris.platform.solrfacetsearch.indexer.strategies.IndexerBatchStrategy;
+import de.hybris.platform.solrfacetsearch.indexer.strategies.IndexerBatchStrategyFactory;
+import de.hybris.platform.solrfacetsearch.indexer.strategies.impl.DefaultIndexerStrategy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full index strategy that splits the product PKs into contiguous PK ranges (partitions)
+ * and indexes them concurrently.
+ *
+ * - Each partition is worked through in batches of batchSize PKs; every batch is loaded,
+ *   resolved and sent to Solr as one bulk request by the platform IndexerBatchStrategy
+ * - Sends are synchronous, so a thread never loads the next batch before Solr accepted
+ *   the previous one; at most threadCount batches are in flight (backpressure)
+ * - Throughput (docs/sec) and per-partition progress are logged every progressIntervalSeconds
+ * - A failing batch is retried up to maxBatchRetries times of the SolrIndexConfig, and at most
+ *   maxRetries times across the whole operation. Once retries are used up, the batch is
+ *   skipped when ignoreErrors is set; otherwise it stops all partitions and fails the operation
+ * - Workers run in their own session. User, language, currency and session catalog versions
+ *   of the indexer cron job are loaded again in that session; models are bound to the session
+ *   that loaded them and must not be shared across threads
+ *
+ * threadCount and batchSize default to numberOfThreads and batchSize of the SolrIndexConfig.
+ * Other operations (update, delete, partial update) use the default strategy.
+ */
+public class PartitionedIndexerStrategy extends DefaultIndexerStrategy {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedIndexerStrategy.class);
+
+    private IndexerBatchStrategyFactory indexerBatchStrategyFactory;
+    private SessionService sessionService;
+    private ModelService modelService;
+    private UserService userService;
+    private CommonI18NService commonI18NService;
+    private CatalogVersionService catalogVersionService;
+    private int threadCount;
+    private int batchSize;
+    private int partitionsPerThread = 4;
+    private int progressIntervalSeconds = 30;
+
+    @Override
+    protected void doExecute(final IndexerContext indexerContext) throws IndexerException {
+        if (indexerContext.getIndexOperation() != IndexOperation.FULL) {
+            super.doExecute(indexerContext);
+            return;
+        }
+
+        final IndexConfig indexConfig = indexerContext.getFacetSearchConfig().getIndexConfig();
+        final int threads = threadCount > 0 ? threadCount : Math.max(1, indexConfig.getNumberOfThreads());
+        final int batch = batchSize > 0 ? batchSize : Math.max(1, indexConfig.getBatchSize());
+
+        final List<Partition> partitions = createPartitions(indexerContext.getPks(), threads * partitionsPerThread);
+        if (partitions.isEmpty()) {
+            return;
+        }
+        LOG.info("Full index of {} items in {} partitions, {} threads, batch size {}",
+                indexerContext.getPks().size(), partitions.size(), threads, batch);
+
+        final Tenant tenant = Registry.getCurrentTenant();
+        final SessionContext sessionContext = captureSessionContext();
+        final AtomicInteger retriesLeft = new AtomicInteger(Math.max(0, indexConfig.getMaxRetries()));
+        final AtomicBoolean failed = new AtomicBoolean();
+        final long start = System.currentTimeMillis();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new CustomizableThreadFactory("solr-index-" + indexerContext.getIndexOperationId() + "-"));
+        try {
+            final List<Future<?>> futures = new ArrayList<>(partitions.size());
+            for (final Partition partition : partitions) {
+                futures.add(executor.submit(() -> {
+                    indexPartitionInContext(tenant, sessionContext, indexerContext, partition, batch, retriesLeft, failed);
+                    return null;
+                }));
+            }
+            awaitPartitions(futures, partitions, start);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final long indexed = partitions.stream().mapToLong(partition -> partition.indexed.get()).sum();
+        final long skipped = partitions.stream().mapToLong(partition -> partition.skipped.get()).sum();
+        LOG.info("Full index finished: {} items in {} ms ({} docs/sec), {} skipped after errors",
+                indexed, System.currentTimeMillis() - start, rate(indexed, start), skipped);
+    }
+
+    private void awaitPartitions(final List<Future<?>> futures, final List<Partition> partitions, final long start)
+            throws IndexerException {
+        long nextReport = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(progressIntervalSeconds);
+        for (final Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(1, TimeUnit.SECONDS);
+                    break;
+                } catch (final TimeoutException e) {
+                    if (System.currentTimeMillis() >= nextReport) {
+                        logProgress(partitions, start);
+                        nextReport = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(progressIntervalSeconds);
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IndexerException("Interrupted while waiting for index partitions", e);
+                } catch (final ExecutionException e) {
+                    throw new IndexerException("Index partition failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Plain session attributes are copied as they are; models are kept as PKs and loaded again
+     * in every worker session.
+     */
+    private SessionContext captureSessionContext() {
+        final Map<String, Object> attributes = new HashMap<>();
+        sessionService.getAllAttributes().forEach((name, value) -> {
+            if (!(value instanceof ItemModel) && !(value instanceof Collection)) {
+                attributes.put(name, value);
+            }
+        });
+        final List<PK> catalogVersionPks = new ArrayList<>();
+        for (final CatalogVersionModel catalogVersion : catalogVersionService.getSessionCatalogVersions()) {
+            catalogVersionPks.add(catalogVersion.getPk());
+        }
+        return new SessionContext(attributes, userService.getCurrentUser().getPk(),
+                commonI18NService.getCurrentLanguage().getPk(), commonI18NService.getCurrentCurrency().getPk(),
+                catalogVersionPks);
+    }
+
+    private void restoreSessionContext(final SessionContext sessionContext) {
+        sessionContext.attributes.forEach(sessionService::setAttribute);
+        userService.setCurrentUser(modelService.get(sessionContext.userPk));
+        commonI18NService.setCurrentLanguage(modelService.get(sessionContext.languagePk));
+        commonI18NService.setCurrentCurrency(modelService.get(sessionContext.currencyPk));
+        final List<CatalogVersionModel> catalogVersions = new ArrayList<>(sessionContext.catalogVersionPks.size());
+        for (final PK pk : sessionContext.catalogVersionPks) {
+            catalogVersions.add(modelService.get(pk));
+        }
+        catalogVersionService.setSessionCatalogVersions(catalogVersions);
+    }
+
+    private void indexPartitionInContext(final Tenant tenant, final SessionContext sessionContext,
+            final IndexerContext indexerContext, final Partition partition, final int batch,
+            final AtomicInteger retriesLeft, final AtomicBoolean failed) throws Exception {
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                // Same user, language, currency and catalog versions as the indexer cron job
+                restoreSessionContext(sessionContext);
+                indexPartition(indexerContext, partition, batch, retriesLeft, failed);
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    private void indexPartition(final IndexerContext indexerContext, final Partition partition, final int batch,
+            final AtomicInteger retriesLeft, final AtomicBoolean failed) throws Exception {
+        final IndexConfig indexConfig = indexerContext.getFacetSearchConfig().getIndexConfig();
+        for (int from = 0; from < partition.pks.size(); from += batch) {
+            if (failed.get() || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            final List<PK> pks = partition.pks.subList(from, Math.min(from + batch, partition.pks.size()));
+            if (indexBatch(indexerContext, partition, pks, indexConfig, retriesLeft, failed)) {
+                partition.indexed.addAndGet(pks.size());
+            } else {
+                partition.skipped.addAndGet(pks.size());
+            }
+        }
+    }
+
+    /**
+     * @return true if the batch was indexed, false if it was skipped because of ignoreErrors
+     */
+    private boolean indexBatch(final IndexerContext indexerContext, final Partition partition, final List<PK> pks,
+            final IndexConfig indexConfig, final AtomicInteger retriesLeft, final AtomicBoolean failed)
+            throws Exception {
+        int batchRetries = 0;
+        while (true) {
+            try {
+                // A fresh batch strategy per attempt, nothing is carried over from the failed one
+                createBatchStrategy(indexerContext, pks).execute();
+                return true;
+            } catch (final InterruptedException e) {
+                failed.set(true);
+                throw e;
+            } catch (final Exception e) {
+                if (batchRetries < indexConfig.getMaxBatchRetries() && retriesLeft.getAndDecrement() > 0) {
+                    batchRetries++;
+                    LOG.warn("Partition {}: batch starting with PK {} failed, retry {} of {}",
+                            partition.index, pks.get(0), batchRetries, indexConfig.getMaxBatchRetries(), e);
+                    continue;
+                }
+                if (indexConfig.isIgnoreErrors()) {
+                    LOG.error("Partition {}: skipping batch starting with PK {} after {} retries",
+                            partition.index, pks.get(0), batchRetries, e);
+                    return false;
+                }
+                failed.set(true);
+                LOG.error("Partition {} failed at batch starting with PK {}", partition.index, pks.get(0), e);
+                throw e;
+            }
+        }
+    }
+
+    private IndexerBatchStrategy createBatchStrategy(final IndexerContext indexerContext, final List<PK> pks)
+            throws IndexerException {
+        final IndexerBatchStrategy batchStrategy =
+                indexerBatchStrategyFactory.createIndexerBatchStrategy(indexerContext.getFacetSearchConfig());
+        batchStrategy.setExternalIndexOperation(indexerContext.isExternalIndexOperation());
+        batchStrategy.setFacetSearchConfig(indexerContext.getFacetSearchConfig());
+        batchStrategy.setIndex(indexerContext.getIndex());
+        batchStrategy.setIndexedType(indexerContext.getIndexedType());
+        batchStrategy.setIndexedProperties(indexerContext.getIndexedProperties());
+        batchStrategy.setIndexerHints(indexerContext.getIndexerHints());
+        batchStrategy.setIndexOperation(indexerContext.getIndexOperation());
+        batchStrategy.setIndexOperationId(indexerContext.getIndexOperationId());
+        batchStrategy.setPks(pks);
+        return batchStrategy;
+    }
+
+    /**
+     * Sort the PKs and cut them into contiguous ranges. More partitions than threads keep all
+     * threads busy when some ranges turn out to be more expensive than others.
+     */
+    private static List<Partition> createPartitions(final List<PK> pks, final int count) {
+        final List<PK> sorted = new ArrayList<>(pks);
+        sorted.sort(null);
+        final int size = Math.max(1, (sorted.size() + count - 1) / count);
+
+        final List<Partition> partitions = new ArrayList<>(count);
+        for (int from = 0; from < sorted.size(); from += size) {
+            partitions.add(new Partition(partitions.size(), sorted.subList(from, Math.min(from + size, sorted.size()))));
+        }
+        return partitions;
+    }
+
+    private static void logProgress(final List<Partition> partitions, final long start) {
+        long indexed = 0L;
+        long total = 0L;
+        final StringBuilder detail = new StringBuilder();
+        for (final Partition partition : partitions) {
+            final long done = partition.indexed.get();
+            indexed += done;
+            total += partition.pks.size();
+            // Only partitions in progress; finished and pending ones would drown the line
+            if (done > 0 && done < partition.pks.size()) {
+                detail.append(" #").append(partition.index).append('=').append(done).append('/').append(partition.pks.size());
+            }
+        }
+        LOG.info("Full index progress: {}/{} items ({} docs/sec), running:{}",
+                indexed, total, rate(indexed, start), detail);
+    }
+
+    private static long rate(final long indexed, final long start) {
+        final long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+        return indexed * 1000L / elapsed;
+    }
+
+    // Setter injection
+    public void setIndexerBatchStrategyFactory(final IndexerBatchStrategyFactory indexerBatchStrategyFactory) {
+        this.indexerBatchStrategyFactory = indexerBatchStrategyFactory;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setModelService(final ModelService modelService) {
+        this.modelService = modelService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setCommonI18NService(final CommonI18NService commonI18NService) {
+        this.commonI18NService = commonI18NService;
+    }
+
+    public void setCatalogVersionService(final CatalogVersionService catalogVersionService) {
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    /**
+     * @param threadCount concurrent partitions; 0 uses numberOfThreads of the SolrIndexConfig
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @param batchSize PKs per Solr bulk request; 0 uses batchSize of the SolrIndexConfig
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setPartitionsPerThread(final int partitionsPerThread) {
+        this.partitionsPerThread = Math.max(1, partitionsPerThread);
+    }
+
+    public void setProgressIntervalSeconds(final int progressIntervalSeconds) {
+        this.progressIntervalSeconds = progressIntervalSeconds;
+    }
+
+    private static final class Partition {
+        private final int index;
+        private final List<PK> pks;
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+
+        Partition(final int index, final List<PK> pks) {
+            this.index = index;
+            this.pks = pks;
+        }
+    }
+
+    private static final class SessionContext {
+        private final Map<String, Object> attributes;
+        private final PK userPk;
+        private final PK languagePk;
+        private final PK currencyPk;
+        private final List<PK> catalogVersionPks;
+
+        SessionContext(final Map<String, Object> attributes, final PK userPk, final PK languagePk,
+                final PK currencyPk, final List<PK> catalogVersionPks) {
+            this.attributes = attributes;
+            this.userPk = userPk;
+            this.languagePk = languagePk;
+            this.currencyPk = currencyPk;
+            this.catalogVersionPks = catalogVersionPks;
+        }
+    }
+}
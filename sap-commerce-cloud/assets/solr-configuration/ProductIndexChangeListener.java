@@ -0,0 +1,382 @@
+package com.example.search.indexer;
+
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.ComposedTypeModel;
+import de.hybris.platform.europe1.model.PriceRowModel;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.type.TypeService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.solrfacetsearch.config.FacetSearchConfig;
+import de.hybris.platform.solrfacetsearch.config.FacetSearchConfigService;
+import de.hybris.platform.solrfacetsearch.config.IndexedProperty;
+import de.hybris.platform.solrfacetsearch.config.IndexedType;
+import de.hybris.platform.solrfacetsearch.indexer.IndexerService;
+import de.hybris.platform.tx.AfterSaveEvent;
+import de.hybris.platform.tx.AfterSaveListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-real-time indexing of product changes.
+ *
+ * Committed saves of products, prices, stock levels and category assignments are recorded
+ * by PK in deduplicating queues. Every windowMillis the queues are drained:
+ * - Product changes: the whole document is reindexed
+ * - Price, stock and category changes: only the configured properties are sent as a
+ *   partial update, resolved through the same value providers as a regular index run
+ * - Removed products are deleted from the index
+ *
+ * Saving ten prices of one product inside a window results in one partial update.
+ * Products outside the catalog versions of the search config (e.g. Staged) are ignored.
+ *
+ * Each node indexes the changes committed on that node. Removed price rows, stock levels and
+ * category assignments no longer reference their product; the scheduled update index job
+ * still covers those.
+ */
+public class ProductIndexChangeListener implements AfterSaveListener, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductIndexChangeListener.class);
+
+    private FlexibleSearchService flexibleSearchService;
+    private TypeService typeService;
+    private SessionService sessionService;
+    private UserService userService;
+    private FacetSearchConfigService facetSearchConfigService;
+    private IndexerService indexerService;
+    private String facetSearchConfigName;
+    private String indexedTypeIdentifier;
+    private Set<String> priceProperties = Collections.emptySet();
+    private Set<String> stockProperties = Collections.emptySet();
+    private Set<String> categoryProperties = Collections.emptySet();
+    private long windowMillis = 2000L;
+    private int maxBatchSize = 500;
+    private boolean enabled = true;
+
+    private final Set<PK> changedProducts = ConcurrentHashMap.newKeySet();
+    private final Set<PK> removedProducts = ConcurrentHashMap.newKeySet();
+    private final Set<PK> changedPrices = ConcurrentHashMap.newKeySet();
+    private final Set<PK> changedStockLevels = ConcurrentHashMap.newKeySet();
+    private final Set<PK> changedCategoryRelations = ConcurrentHashMap.newKeySet();
+
+    private volatile Set<Integer> productTypeCodes = Collections.emptySet();
+    private volatile Set<Integer> priceTypeCodes = Collections.emptySet();
+    private volatile Set<Integer> stockLevelTypeCodes = Collections.emptySet();
+    private volatile Set<Integer> categoryRelationTypeCodes = Collections.emptySet();
+    private volatile ScheduledExecutorService scheduler;
+
+    @Override
+    public void afterSave(final Collection<AfterSaveEvent> events) {
+        // Runs in the saving thread: record PKs only, all work happens in flush()
+        if (scheduler == null) {
+            return;
+        }
+        for (final AfterSaveEvent event : events) {
+            final PK pk = event.getPk();
+            final Integer typeCode = Integer.valueOf(pk.getTypeCode());
+            if (productTypeCodes.contains(typeCode)) {
+                if (event.getType() == AfterSaveEvent.REMOVE) {
+                    changedProducts.remove(pk);
+                    removedProducts.add(pk);
+                } else {
+                    changedProducts.add(pk);
+                }
+            } else if (event.getType() == AfterSaveEvent.REMOVE) {
+                continue;
+            } else if (priceTypeCodes.contains(typeCode)) {
+                changedPrices.add(pk);
+            } else if (stockLevelTypeCodes.contains(typeCode)) {
+                changedStockLevels.add(pk);
+            } else if (categoryRelationTypeCodes.contains(typeCode)) {
+                changedCategoryRelations.add(pk);
+            }
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        // Web contexts refresh too; start only once
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        try {
+            productTypeCodes = resolveTypeCodes(typeService.getComposedTypeForClass(ProductModel.class));
+            priceTypeCodes = resolveTypeCodes(typeService.getComposedTypeForClass(PriceRowModel.class));
+            stockLevelTypeCodes = resolveTypeCodes(typeService.getComposedTypeForClass(StockLevelModel.class));
+            categoryRelationTypeCodes = resolveTypeCodes(typeService.getComposedTypeForCode("CategoryProductRelation"));
+        } catch (final RuntimeException e) {
+            LOG.warn("Near-real-time indexing disabled, type system not available", e);
+            return;
+        }
+
+        final Tenant tenant = Registry.getCurrentTenant();
+        final ScheduledExecutorService executor =
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("solr-nrt-"));
+        executor.scheduleWithFixedDelay(() -> flushInContext(tenant), windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+        LOG.info("Near-real-time indexing of {} / {} started, window {} ms",
+                facetSearchConfigName, indexedTypeIdentifier, windowMillis);
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void flushInContext(final Tenant tenant) {
+        Registry.setCurrentTenant(tenant);
+        try {
+            sessionService.createNewSession();
+            try {
+                userService.setCurrentUser(userService.getAdminUser());
+                flush();
+            } finally {
+                sessionService.closeCurrentSession();
+            }
+        } catch (final Exception e) {
+            // Keep the scheduler alive; the affected PKs are picked up by the next update index job
+            LOG.error("Near-real-time index flush failed", e);
+        } finally {
+            Registry.unsetCurrentTenant();
+        }
+    }
+
+    /**
+     * Drain the queues and push the collected changes to Solr.
+     */
+    protected void flush() throws Exception {
+        final Set<PK> full = drain(changedProducts);
+        final Set<PK> removed = drain(removedProducts);
+        final Set<PK> prices = drain(changedPrices);
+        final Set<PK> stockLevels = drain(changedStockLevels);
+        final Set<PK> relations = drain(changedCategoryRelations);
+        if (full.isEmpty() && removed.isEmpty() && prices.isEmpty() && stockLevels.isEmpty() && relations.isEmpty()) {
+            return;
+        }
+
+        final FacetSearchConfig config = facetSearchConfigService.getConfiguration(facetSearchConfigName);
+        final IndexedType indexedType = config.getIndexConfig().getIndexedTypes().get(indexedTypeIdentifier);
+        final Collection<CatalogVersionModel> catalogVersions = config.getIndexConfig().getCatalogVersions();
+
+        // Product PK -> properties to update; products with a full update need no partial one
+        final Map<PK, Set<String>> partial = new HashMap<>();
+        addPartial(partial, resolveProducts(
+                "SELECT {pr.product} FROM {PriceRow AS pr} WHERE {pr.pk} IN (?pks) AND {pr.product} IS NOT NULL",
+                prices), priceProperties);
+        addPartial(partial, resolveProducts(
+                "SELECT {p.pk} FROM {StockLevel AS sl JOIN Product AS p ON {p.code} = {sl.productCode}} " +
+                "WHERE {sl.pk} IN (?pks)", stockLevels), stockProperties);
+        addPartial(partial, resolveProducts(
+                "SELECT {rel.target} FROM {CategoryProductRelation AS rel} WHERE {rel.pk} IN (?pks)",
+                relations), categoryProperties);
+
+        final Set<PK> indexable = filterIndexable(union(full, partial.keySet()), catalogVersions);
+        full.retainAll(indexable);
+        partial.keySet().removeIf(pk -> full.contains(pk) || !indexable.contains(pk));
+
+        for (final List<PK> chunk : chunks(removed)) {
+            indexerService.deleteTypeIndex(config, indexedType, chunk);
+        }
+        for (final List<PK> chunk : chunks(full)) {
+            indexerService.updateTypeIndex(config, indexedType, chunk);
+        }
+
+        // Group by property set: usually only a handful of distinct combinations
+        final Map<Set<String>, Set<PK>> byProperties = new HashMap<>();
+        partial.forEach((pk, properties) -> byProperties.computeIfAbsent(properties, p -> new HashSet<>()).add(pk));
+        for (final Map.Entry<Set<String>, Set<PK>> entry : byProperties.entrySet()) {
+            final Collection<IndexedProperty> properties = resolveProperties(indexedType, entry.getKey());
+            if (properties.isEmpty()) {
+                continue;
+            }
+            for (final List<PK> chunk : chunks(entry.getValue())) {
+                indexerService.updatePartialTypeIndex(config, indexedType, properties, chunk);
+            }
+        }
+
+        LOG.debug("Near-real-time index flush: {} full, {} partial, {} removed",
+                full.size(), partial.size(), removed.size());
+    }
+
+    private Set<PK> resolveProducts(final String queryString, final Set<PK> sourcePks) {
+        final Set<PK> productPks = new HashSet<>();
+        for (final List<PK> chunk : chunks(sourcePks)) {
+            productPks.addAll(searchPks(queryString, "pks", chunk));
+        }
+        return productPks;
+    }
+
+    private Set<PK> filterIndexable(final Set<PK> productPks, final Collection<CatalogVersionModel> catalogVersions) {
+        final Set<PK> indexable = new HashSet<>();
+        if (catalogVersions.isEmpty()) {
+            return indexable;
+        }
+        for (final List<PK> chunk : chunks(productPks)) {
+            final FlexibleSearchQuery query = new FlexibleSearchQuery(
+                    "SELECT {pk} FROM {Product} WHERE {pk} IN (?pks) AND {catalogVersion} IN (?catalogVersions)");
+            query.addQueryParameter("pks", chunk);
+            query.addQueryParameter("catalogVersions", catalogVersions);
+            query.setResultClassList(Arrays.asList(PK.class));
+            query.setNeedTotal(false);
+            // Must see the rows just committed
+            query.setDisableCaching(true);
+            indexable.addAll(flexibleSearchService.<PK>search(query).getResult());
+        }
+        return indexable;
+    }
+
+    private List<PK> searchPks(final String queryString, final String parameter, final List<PK> pks) {
+        final FlexibleSearchQuery query = new FlexibleSearchQuery(queryString);
+        query.addQueryParameter(parameter, pks);
+        query.setResultClassList(Arrays.asList(PK.class));
+        query.setNeedTotal(false);
+        query.setDisableCaching(true);
+        return flexibleSearchService.<PK>search(query).getResult();
+    }
+
+    private static void addPartial(final Map<PK, Set<String>> partial, final Set<PK> productPks,
+            final Set<String> properties) {
+        if (properties.isEmpty()) {
+            return;
+        }
+        for (final PK pk : productPks) {
+            partial.computeIfAbsent(pk, key -> new HashSet<>()).addAll(properties);
+        }
+    }
+
+    private static Collection<IndexedProperty> resolveProperties(final IndexedType indexedType, final Set<String> names) {
+        final List<IndexedProperty> properties = new ArrayList<>(names.size());
+        for (final String name : names) {
+            final IndexedProperty property = indexedType.getIndexedProperties().get(name);
+            if (property == null) {
+                LOG.warn("Indexed property {} not found in {}, skipped", name, indexedType.getIdentifier());
+            } else {
+                properties.add(property);
+            }
+        }
+        return properties;
+    }
+
+    private List<List<PK>> chunks(final Set<PK> pks) {
+        final List<List<PK>> chunks = new ArrayList<>();
+        final Iterator<PK> iterator = pks.iterator();
+        while (iterator.hasNext()) {
+            final List<PK> chunk = new ArrayList<>(Math.min(maxBatchSize, pks.size()));
+            while (iterator.hasNext() && chunk.size() < maxBatchSize) {
+                chunk.add(iterator.next());
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static Set<PK> drain(final Set<PK> queue) {
+        final Set<PK> drained = new LinkedHashSet<>();
+        final Iterator<PK> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            // A PK re-added after removal here is flushed in the next window
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private static Set<PK> union(final Set<PK> first, final Set<PK> second) {
+        final Set<PK> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    private static Set<Integer> resolveTypeCodes(final ComposedTypeModel type) {
+        final Set<Integer> typeCodes = new HashSet<>();
+        typeCodes.add(type.getItemtypecode());
+        for (final ComposedTypeModel subType : type.getAllSubTypes()) {
+            typeCodes.add(subType.getItemtypecode());
+        }
+        return typeCodes;
+    }
+
+    // Setter injection
+    public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService) {
+        this.flexibleSearchService = flexibleSearchService;
+    }
+
+    public void setTypeService(final TypeService typeService) {
+        this.typeService = typeService;
+    }
+
+    public void setSessionService(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public void setUserService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public void setFacetSearchConfigService(final FacetSearchConfigService facetSearchConfigService) {
+        this.facetSearchConfigService = facetSearchConfigService;
+    }
+
+    public void setIndexerService(final IndexerService indexerService) {
+        this.indexerService = indexerService;
+    }
+
+    public void setFacetSearchConfigName(final String facetSearchConfigName) {
+        this.facetSearchConfigName = facetSearchConfigName;
+    }
+
+    public void setIndexedTypeIdentifier(final String indexedTypeIdentifier) {
+        this.indexedTypeIdentifier = indexedTypeIdentifier;
+    }
+
+    public void setPriceProperties(final Set<String> priceProperties) {
+        this.priceProperties = priceProperties;
+    }
+
+    public void setStockProperties(final Set<String> stockProperties) {
+        this.stockProperties = stockProperties;
+    }
+
+    public void setCategoryProperties(final Set<String> categoryProperties) {
+        this.categoryProperties = categoryProperties;
+    }
+
+    public void setWindowMillis(final long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void setMaxBatchSize(final int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+}